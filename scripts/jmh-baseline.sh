@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Record or compare JMH results against src/jmh/baseline/jmh-baseline.json.
+#
+# Usage:
+#   scripts/jmh-baseline.sh record
+#   scripts/jmh-baseline.sh compare
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+BASELINE=src/jmh/baseline/jmh-baseline.json
+RESULT=target/jmh-result.json
+
+mode="${1:-compare}"
+
+mvn -B -q -Pjmh test-compile exec:exec -Djmh.args="-rf json -rff $RESULT ${JMH_EXTRA_ARGS:-}"
+
+case "$mode" in
+    record)
+        cp "$RESULT" "$BASELINE"
+        echo "Baseline updated: $BASELINE"
+        ;;
+    compare)
+        if [ ! -f "$BASELINE" ]; then
+            echo "No baseline at $BASELINE; run '$0 record' first." >&2
+            exit 1
+        fi
+        python3 - "$BASELINE" "$RESULT" <<'PY'
+import json, sys
+
+def load(path):
+    out = {}
+    for run in json.load(open(path)):
+        key = run["benchmark"].rsplit(".", 2)[-2:]
+        params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+        name = ".".join(key) + (f" [{params}]" if params else "")
+        m = run["primaryMetric"]
+        out[name] = (m["score"], m["scoreUnit"])
+    return out
+
+base, cur = load(sys.argv[1]), load(sys.argv[2])
+print(f"{'benchmark':60} {'baseline':>14} {'current':>14} {'change':>9}")
+for name in sorted(set(base) | set(cur)):
+    b, c = base.get(name), cur.get(name)
+    if b is None or c is None:
+        print(f"{name:60} {'-' if b is None else f'{b[0]:.2f}':>14} {'-' if c is None else f'{c[0]:.2f}':>14}")
+        continue
+    change = (c[0] - b[0]) / b[0] * 100 if b[0] else 0.0
+    print(f"{name:60} {b[0]:>11.2f} {b[1][:2]} {c[0]:>11.2f} {c[1][:2]} {change:>+8.1f}%")
+PY
+        ;;
+    *)
+        echo "Usage: $0 record|compare" >&2
+        exit 2
+        ;;
+esac
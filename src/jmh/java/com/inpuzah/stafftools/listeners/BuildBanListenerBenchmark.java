@@ -0,0 +1,72 @@
+package com.inpuzah.stafftools.listeners;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block classification done by BuildBanListener for build-banned players on every
+ * interact event. The listener derives its container set from block states, which
+ * needs a running server, so this builds an EnumSet of the same shape by name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuildBanListenerBenchmark {
+
+    private Set<Material> containers;
+    private Material[] clicked;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("deprecation") // Material.isLegacy
+    public void setup() {
+        containers = EnumSet.noneOf(Material.class);
+        for (Material material : Material.values()) {
+            String name = material.name();
+            if (material.isLegacy() || material == Material.ENDER_CHEST)
+                continue;
+            if (name.endsWith("CHEST") || name.endsWith("SHULKER_BOX") || name.endsWith("FURNACE")
+                    || name.endsWith("_SHELF") || name.equals("BARREL") || name.equals("SMOKER")
+                    || name.equals("HOPPER") || name.equals("DISPENSER") || name.equals("DROPPER")
+                    || name.equals("BREWING_STAND") || name.equals("LECTERN") || name.equals("JUKEBOX")
+                    || name.equals("CHISELED_BOOKSHELF") || name.equals("DECORATED_POT") || name.equals("CRAFTER"))
+                containers.add(material);
+        }
+        // What players actually click: mostly terrain, some containers and redstone.
+        clicked = new Material[] { Material.STONE, Material.GRASS_BLOCK, Material.DIRT, Material.OAK_PLANKS,
+                Material.CHEST, Material.BARREL, Material.SHULKER_BOX, Material.LEVER, Material.STONE_BUTTON,
+                Material.OAK_DOOR, Material.FURNACE, Material.REPEATER };
+    }
+
+    private Material pick() {
+        return clicked[ThreadLocalRandom.current().nextInt(clicked.length)];
+    }
+
+    @Benchmark
+    public boolean isContainer() {
+        return BuildBanListener.isContainerMaterial(containers, pick());
+    }
+
+    @Benchmark
+    public boolean leftClickCheck() {
+        Material m = pick();
+        return BuildBanListener.isContainerMaterial(containers, m) || BuildBanListener.isRedstoneBlock(m);
+    }
+}
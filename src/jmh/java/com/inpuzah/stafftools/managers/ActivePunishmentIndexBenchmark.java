@@ -0,0 +1,141 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups behind PunishmentManager.getActiveBan / isPlayerMuted and
+ * BuildBanManager.isBuildBanned, under concurrent readers.
+ *
+ * The managers need a running server, so these drive the same ActivePunishmentIndex
+ * they delegate to, with the same get-then-isExpired check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivePunishmentIndexBenchmark {
+
+    private static final UUID STAFF = UUID.fromString("00000000-0000-0000-0000-000000000000");
+
+    @Param({ "1000", "50000" })
+    public int bans;
+
+    private ActivePunishmentIndex index;
+    private UUID[] banned;
+    private UUID[] muted;
+    private UUID[] clean;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new ActivePunishmentIndex();
+        banned = new UUID[bans];
+        for (int i = 0; i < bans; i++) {
+            banned[i] = UUID.randomUUID();
+            // Mix of permanent and long temporary bans
+            index.put(punishment(banned[i], PunishmentType.BAN, i % 3 == 0 ? 0 : 60 * 24 * 30));
+        }
+        muted = new UUID[Math.max(1, bans / 10)];
+        for (int i = 0; i < muted.length; i++) {
+            muted[i] = UUID.randomUUID();
+            index.put(punishment(muted[i], PunishmentType.MUTE, 60));
+        }
+        for (int i = 0; i < 50; i++) {
+            index.put(punishment(UUID.randomUUID(), PunishmentType.BUILDBAN, 0));
+        }
+        clean = new UUID[1024];
+        for (int i = 0; i < clean.length; i++) {
+            clean[i] = UUID.randomUUID();
+        }
+    }
+
+    private static Punishment punishment(UUID uuid, PunishmentType type, long minutes) {
+        return new Punishment(uuid, "player", STAFF, "CONSOLE", type, "benchmark", minutes);
+    }
+
+    private static UUID pick(UUID[] from) {
+        return from[ThreadLocalRandom.current().nextInt(from.length)];
+    }
+
+    private Punishment activeOrNull(UUID uuid, PunishmentType type) {
+        Punishment p = index.get(uuid, type);
+        return (p == null || p.isExpired()) ? null : p;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Punishment getActiveBanHit() {
+        return activeOrNull(pick(banned), PunishmentType.BAN);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Punishment getActiveBanMiss() {
+        return activeOrNull(pick(clean), PunishmentType.BAN);
+    }
+
+    /** Login fast path: Bloom filter rejects most clean UUIDs before any map lookup. */
+    @Benchmark
+    @Threads(4)
+    public boolean loginBanCheckMiss() {
+        UUID uuid = pick(clean);
+        return index.mightBeBanned(uuid) && activeOrNull(uuid, PunishmentType.BAN) != null;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isPlayerMutedMiss() {
+        return activeOrNull(pick(clean), PunishmentType.MUTE) != null;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isPlayerMutedHit() {
+        return activeOrNull(pick(muted), PunishmentType.MUTE) != null;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isBuildBannedMiss() {
+        return index.buildBannedSnapshot().contains(pick(clean));
+    }
+
+    // Readers while another thread keeps muting and unmuting.
+
+    @Benchmark
+    @Group("mutedUnderChurn")
+    @GroupThreads(3)
+    public boolean churnReader() {
+        return activeOrNull(pick(muted), PunishmentType.MUTE) != null;
+    }
+
+    @Benchmark
+    @Group("mutedUnderChurn")
+    @GroupThreads(1)
+    public void churnWriter() {
+        UUID uuid = pick(muted);
+        Punishment removed = index.remove(uuid, PunishmentType.MUTE);
+        index.put(removed != null ? removed : punishment(uuid, PunishmentType.MUTE, 60));
+    }
+}
@@ -0,0 +1,108 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Startup cost of filling the active index from an in-memory SQLite punishments
+ * table, per type, through PunishmentManager's own warm-up query, in both column
+ * encodings (see {@link RowCodec}). The schema comes from {@link SchemaMigrator},
+ * and {@link CompactStorage} for the compact encoding.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActiveWarmupBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int rows;
+
+    @Param({ "text", "compact" })
+    public String encoding;
+
+    private Connection conn;
+    private RowCodec codec;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        // A single open connection keeps the in-memory database alive for the trial.
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        codec = encoding.equals("compact") ? RowCodec.COMPACT : RowCodec.TEXT;
+        Logger logger = Logger.getLogger("ActiveWarmupBenchmark");
+        logger.setLevel(java.util.logging.Level.WARNING); // keep the migration log out of the results
+        new SchemaMigrator(false, logger).migrate(conn);
+        if (codec.isCompact()) {
+            new CompactStorage(false, logger).convert(conn);
+        }
+
+        PunishmentType[] types = PunishmentType.values();
+        long now = System.currentTimeMillis();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO punishments (player_uuid, player_name, "
+                + "staff_uuid, staff_name, type, reason, duration, timestamp, expires_at, active) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                long duration = i % 4 == 0 ? 0 : 60L * 24;
+                codec.setUuid(ps, 1, UUID.randomUUID());
+                ps.setString(2, "player" + i);
+                codec.setUuid(ps, 3, UUID.randomUUID());
+                ps.setString(4, "staff");
+                codec.setType(ps, 5, types[i % types.length]);
+                ps.setString(6, "benchmark reason " + i);
+                ps.setLong(7, duration);
+                ps.setLong(8, now);
+                if (duration == 0)
+                    ps.setNull(9, java.sql.Types.BIGINT);
+                else
+                    ps.setLong(9, now + duration * 60_000L);
+                // Roughly a third of history is still active (period coprime with the type cycle)
+                ps.setBoolean(10, i % 3 == 0);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public ActivePunishmentIndex loadActive() throws SQLException {
+        ActivePunishmentIndex index = new ActivePunishmentIndex();
+        for (PunishmentType type : new PunishmentType[] { PunishmentType.BAN, PunishmentType.MUTE,
+                PunishmentType.BUILDBAN }) {
+            PunishmentManager.readActiveOfType(conn, codec, type, p -> {
+                index.put(p);
+                return true;
+            });
+        }
+        return index;
+    }
+}
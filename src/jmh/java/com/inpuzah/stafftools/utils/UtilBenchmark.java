@@ -0,0 +1,79 @@
+package com.inpuzah.stafftools.utils;
+
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/** MessageUtil, TimeUtil and Punishment helpers that sit on chat, command and GUI paths. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilBenchmark {
+
+    private static final String PREFIX = "&6&lFalcon SMP &8| &6&lBG&7SU &8» &6";
+
+    private String legacyMessage;
+    private Punishment temporary;
+    private Punishment permanent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        legacyMessage = PREFIX + "&cYou are muted for: &fSpamming in chat\n&cTime remaining: &f2 hours 15 minutes";
+        UUID uuid = UUID.randomUUID();
+        UUID staff = UUID.randomUUID();
+        temporary = new Punishment(uuid, "player", staff, "staff", PunishmentType.MUTE, "spam", 135);
+        permanent = new Punishment(uuid, "player", staff, "staff", PunishmentType.BAN, "cheating", 0);
+    }
+
+    @Benchmark
+    public Component component() {
+        return MessageUtil.component(legacyMessage);
+    }
+
+    @Benchmark
+    public String colorize() {
+        return MessageUtil.colorize(legacyMessage);
+    }
+
+    @Benchmark
+    public String formatDuration() {
+        return TimeUtil.formatDuration(3 * 1440 + 4 * 60 + 25);
+    }
+
+    @Benchmark
+    public long parseDurationCompound() {
+        return TimeUtil.parseDuration("1d12h30m");
+    }
+
+    @Benchmark
+    public long parseDurationPermanent() {
+        return TimeUtil.parseDuration("perm");
+    }
+
+    @Benchmark
+    public boolean isExpiredTemporary() {
+        return temporary.isExpired();
+    }
+
+    @Benchmark
+    public boolean isExpiredPermanent() {
+        return permanent.isExpired();
+    }
+}
@@ -0,0 +1,480 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.Appeal;
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import com.inpuzah.stafftools.database.models.Report;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Replays a synthetic mix of staff traffic against a real {@link DatabaseManager}
+ * (same Hikari settings, pragmas and schema as the plugin) and reports latency
+ * percentiles, time spent waiting for a pooled connection or the writer, and
+ * SQLITE_BUSY counts.
+ *
+ * Each operation calls the package-private statement methods the managers
+ * themselves run for that action (so the load test cannot drift from them),
+ * writing through {@link DatabaseManager#write} and reading through
+ * {@link DatabaseManager#read}, as the managers do. Only the seed rows are
+ * inserted directly.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--threads 16 --duration 60"
+ * </pre>
+ *
+ * Options (all optional):
+ * <ul>
+ * <li>{@code --config <file>}: config.yml to read the {@code database} section from
+ * (default src/main/resources/config.yml). Point it at a copy with
+ * {@code type: mysql} to test a local MySQL instance.</li>
+ * <li>{@code --data-dir <dir>}: where the SQLite file goes (default target/loadtest)</li>
+ * <li>{@code --threads <n>}: concurrent workers (default 8)</li>
+ * <li>{@code --duration <seconds>}: measured run time (default 30)</li>
+ * <li>{@code --players <n>}: distinct player UUIDs (default 2000)</li>
+ * <li>{@code --seed <rows>}: history rows inserted before measuring (default 20000)</li>
+ * <li>{@code --mix op=weight,...}: relative weights, see {@link Op}</li>
+ * <li>{@code --pool-size <n>}: overrides the configured pool size</li>
+ * <li>{@code --fresh}: delete the SQLite file first</li>
+ * <li>{@code --compact}: use (converting to) the compact encoding, see {@link RowCodec}</li>
+ * </ul>
+ */
+public final class DatabaseLoadTest {
+
+    /** One kind of traffic, running the statement method named. */
+    enum Op {
+        ISSUE(30, true), // PunishmentManager.insertUnlessActive
+        REMOVE(10, true), // PunishmentManager.deactivatePunishment
+        REPORT(15, true), // ReportManager.upsertReport (aggregating upsert)
+        APPEAL(5, true), // AppealManager.insertPending
+        AUDIT(25, true), // AuditManager.insertBatch (10 rows)
+        HISTORY(10, false), // PunishmentManager.readHistoryPage
+        SUMMARY(5, false), // PunishmentManager.readSummary
+        POLL(2, false); // PunishmentChangeFeed.readPage
+
+        final int defaultWeight;
+        final boolean write;
+
+        Op(int defaultWeight, boolean write) {
+            this.defaultWeight = defaultWeight;
+            this.write = write;
+        }
+    }
+
+    private static final PunishmentType[] TYPES = PunishmentType.values();
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private final DatabaseManager db;
+    private final RowCodec codec;
+    private final UUID[] players;
+    private final UUID staff = UUID.randomUUID();
+    private final Map<Op, Integer> weights;
+    private final int totalWeight;
+
+    // Recently issued active punishment ids, so REMOVE and APPEAL have real targets.
+    private final ConcurrentLinkedQueue<Integer> activeIds = new ConcurrentLinkedQueue<>();
+
+    private final Map<Op, Stats> stats = new EnumMap<>(Op.class);
+    private final Stats poolWait = new Stats();
+    private final Stats writeWait = new Stats();
+    private final AtomicLong busy = new AtomicLong();
+
+    private DatabaseLoadTest(DatabaseManager db, int playerCount, Map<Op, Integer> weights) {
+        this.db = db;
+        this.codec = db.getCodec();
+        this.players = new UUID[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = UUID.randomUUID();
+        }
+        this.weights = weights;
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        for (Op op : Op.values()) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        File configFile = new File(opts.getOrDefault("config", "src/main/resources/config.yml"));
+        File dataDir = new File(opts.getOrDefault("data-dir", "target/loadtest"));
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "8"));
+        int durationSec = Integer.parseInt(opts.getOrDefault("duration", "30"));
+        int playerCount = Integer.parseInt(opts.getOrDefault("players", "2000"));
+        int seedRows = Integer.parseInt(opts.getOrDefault("seed", "20000"));
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        String type = config.getString("database.type", "sqlite");
+        if (opts.containsKey("pool-size")) {
+            config.set("database." + (type.equalsIgnoreCase("mysql") ? "mysql" : "sqlite") + ".pool-size",
+                    Integer.parseInt(opts.get("pool-size")));
+        }
+        if (opts.containsKey("compact")) {
+            config.set("database.compact-encoding", true);
+        }
+        if (opts.containsKey("fresh") && !type.equalsIgnoreCase("mysql")) {
+            String fileName = config.getString("database.sqlite.file", "stafftools.db");
+            for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                new File(dataDir, fileName + suffix).delete();
+            }
+        }
+
+        DatabaseManager db = new DatabaseManager(config, dataDir, Logger.getLogger("DatabaseLoadTest"));
+        db.initialize();
+        try {
+            DatabaseLoadTest test = new DatabaseLoadTest(db, playerCount, parseMix(opts.get("mix")));
+            System.out.printf("Database: %s (%s encoding), pool size %d, %d threads, %ds, %d players%n", type,
+                    db.getCodec().isCompact() ? "compact" : "text", poolSize(config, type), threads, durationSec,
+                    playerCount);
+            test.seed(seedRows);
+            test.run(threads, durationSec);
+        } finally {
+            db.shutdown();
+        }
+    }
+
+    private static int poolSize(YamlConfiguration config, String type) {
+        return type.equalsIgnoreCase("mysql")
+                ? Math.max(5, config.getInt("database.mysql.pool-size", 10))
+                : Math.max(2, config.getInt("database.sqlite.pool-size", 3));
+    }
+
+    // ----- Setup -----
+
+    private void seed(int rows) {
+        if (rows <= 0)
+            return;
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        db.write(conn -> {
+            // The single writer already runs this in a transaction; otherwise open one.
+            boolean ownTransaction = conn.getAutoCommit();
+            if (ownTransaction)
+                conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    INSERT INTO punishments (player_uuid, player_name, staff_uuid, staff_name,
+                    type, reason, duration, timestamp, expires_at, active, server_name, ip_address)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 'loadtest', NULL)
+                    """)) {
+                for (int i = 0; i < rows; i++) {
+                    UUID player = players[i % players.length];
+                    long ts = now - ThreadLocalRandom.current().nextLong(TimeUnit.DAYS.toMillis(365));
+                    codec.setUuid(stmt, 1, player);
+                    stmt.setString(2, name(player));
+                    codec.setUuid(stmt, 3, staff);
+                    stmt.setString(4, "LoadTest");
+                    codec.setType(stmt, 5, TYPES[i % TYPES.length]);
+                    stmt.setString(6, "Seeded history row " + i);
+                    stmt.setLong(7, 60);
+                    stmt.setLong(8, ts);
+                    stmt.setLong(9, ts + 3_600_000L);
+                    stmt.addBatch();
+                    if (i % 1000 == 999)
+                        stmt.executeBatch();
+                }
+                stmt.executeBatch();
+            }
+            if (ownTransaction) {
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            return null;
+        }).join();
+        System.out.printf("Seeded %d history rows in %d ms%n", rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // ----- Run -----
+
+    private void run(int threads, int durationSec) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        execute(pickOp());
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        // Sample the pool while the workers run
+        HikariPoolMXBean pool = db.getPoolStats();
+        int samples = 0;
+        long waitingSum = 0;
+        int waitingMax = 0;
+        int activeMax = 0;
+        while (!done.await(100, TimeUnit.MILLISECONDS)) {
+            if (pool != null) {
+                int waiting = pool.getThreadsAwaitingConnection();
+                waitingSum += waiting;
+                waitingMax = Math.max(waitingMax, waiting);
+                activeMax = Math.max(activeMax, pool.getActiveConnections());
+                samples++;
+            }
+        }
+
+        printReport(durationSec);
+        if (samples > 0) {
+            System.out.printf("Pool: max active %d, threads waiting avg %.2f / max %d (%d samples)%n",
+                    activeMax, (double) waitingSum / samples, waitingMax, samples);
+        }
+        if (db.isSingleWriter()) {
+            long transactions = db.getWriteTransactionCount();
+            System.out.printf("Writer: %d writes in %d transactions (avg %.1f, largest %d), %d failed%n",
+                    db.getWriteTaskCount(), transactions,
+                    transactions == 0 ? 0.0 : (double) db.getWriteTaskCount() / transactions,
+                    db.getLargestWriteBatch(), db.getFailedWriteCount());
+        }
+    }
+
+    private Op pickOp() {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Op, Integer> e : weights.entrySet()) {
+            r -= e.getValue();
+            if (r < 0)
+                return e.getKey();
+        }
+        return Op.HISTORY;
+    }
+
+    private void execute(Op op) {
+        Stats s = stats.get(op);
+        long start = System.nanoTime();
+        DatabaseManager.SqlWork<Void> work = conn -> {
+            // Queueing on the executor or writer plus borrowing the connection
+            (op.write ? writeWait : poolWait).record(System.nanoTime() - start);
+            switch (op) {
+                case ISSUE -> issue(conn);
+                case REMOVE -> remove(conn);
+                case REPORT -> report(conn);
+                case APPEAL -> appeal(conn);
+                case AUDIT -> audit(conn);
+                case HISTORY -> history(conn);
+                case SUMMARY -> summary(conn);
+                case POLL -> poll(conn);
+            }
+            return null;
+        };
+        try {
+            (op.write ? db.write(work) : db.read(work)).join();
+            s.record(System.nanoTime() - start);
+        } catch (CompletionException e) {
+            s.errors.incrementAndGet();
+            if (isBusy(e)) {
+                busy.incrementAndGet();
+            } else if (s.errors.get() <= 3) {
+                System.err.println("[" + op + "] " + DatabaseManager.rootMessage(e));
+            }
+        }
+    }
+
+    private static boolean isBusy(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql
+                    && (sql.getErrorCode() == SQLITE_BUSY || sql.getErrorCode() == SQLITE_LOCKED))
+                return true;
+            String msg = t.getMessage();
+            if (msg != null && (msg.contains("SQLITE_BUSY") || msg.contains("database is locked")))
+                return true;
+        }
+        return false;
+    }
+
+    // ----- Operations (the managers' own statement methods) -----
+
+    private static final String SERVER_NAME = "loadtest";
+    private static final int HISTORY_PAGE_SIZE = 45; // PunishmentHistoryGUI.ITEMS_PER_PAGE
+    private static final int POLL_BATCH = 500;
+    private static final long REPORT_WINDOW_MS = 300_000L;
+
+    private void issue(Connection conn) throws SQLException {
+        UUID player = randomPlayer();
+        PunishmentType type = TYPES[ThreadLocalRandom.current().nextInt(TYPES.length)];
+        Punishment punishment = new Punishment(player, name(player), staff, "LoadTest", type,
+                "Load test " + type.name().toLowerCase(), 60);
+        boolean issued = PunishmentManager.insertUnlessActive(conn, codec, punishment, SERVER_NAME, db.isMySQL());
+        if (issued && punishment.isActive())
+            activeIds.offer(punishment.getId());
+    }
+
+    private void remove(Connection conn) throws SQLException {
+        Integer id = activeIds.poll();
+        if (id == null)
+            return;
+        PunishmentManager.deactivatePunishment(conn, codec, id, staff, "Load test removal");
+    }
+
+    private void report(Connection conn) throws SQLException {
+        UUID reporter = randomPlayer();
+        UUID reported = randomPlayer();
+        Report report = new Report(reporter, name(reporter), reported, name(reported), "Load test report");
+        long windowStart = System.currentTimeMillis() - REPORT_WINDOW_MS;
+        ReportManager.upsertReport(conn, db.isMySQL(), report, SERVER_NAME, windowStart);
+    }
+
+    private void appeal(Connection conn) throws SQLException {
+        Integer id = activeIds.peek();
+        if (id == null)
+            return;
+        UUID player = randomPlayer();
+        AppealManager.insertPending(conn, db.isMySQL(), new Appeal(id, player, name(player), "Load test appeal"));
+    }
+
+    private void audit(Connection conn) throws SQLException {
+        long now = System.currentTimeMillis();
+        List<AuditManager.AuditEntry> batch = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++) {
+            UUID target = randomPlayer();
+            batch.add(new AuditManager.AuditEntry(staff, "LoadTest", "PUNISHMENT_ISSUED", target, name(target),
+                    "Load test audit row", now));
+        }
+        AuditManager.insertBatch(conn, codec, batch, SERVER_NAME);
+    }
+
+    private void history(Connection conn) throws SQLException {
+        PunishmentManager.readHistoryPage(conn, codec, randomPlayer(), Long.MAX_VALUE, Integer.MAX_VALUE,
+                HISTORY_PAGE_SIZE);
+    }
+
+    private void summary(Connection conn) throws SQLException {
+        PunishmentManager.readSummary(conn, codec, randomPlayer());
+    }
+
+    private void poll(Connection conn) throws SQLException {
+        PunishmentChangeFeed.readPage(conn, codec, System.currentTimeMillis() - 5000L, 0, POLL_BATCH);
+    }
+
+    private UUID randomPlayer() {
+        return players[ThreadLocalRandom.current().nextInt(players.length)];
+    }
+
+    private static String name(UUID uuid) {
+        return "p" + uuid.toString().substring(0, 8);
+    }
+
+    // ----- Reporting -----
+
+    private void printReport(int durationSec) {
+        System.out.println();
+        System.out.printf("%-10s %9s %8s %9s %9s %9s %9s%n", "op", "count", "errors", "ops/s", "p50 ms", "p99 ms",
+                "max ms");
+        for (Op op : Op.values()) {
+            if (!weights.containsKey(op))
+                continue;
+            printRow(op.name().toLowerCase(), stats.get(op), durationSec);
+        }
+        printRow("pool-wait", poolWait, durationSec);
+        printRow("write-wait", writeWait, durationSec);
+        System.out.printf("SQLITE_BUSY / locked errors: %d%n", busy.get());
+    }
+
+    private static void printRow(String label, Stats s, int durationSec) {
+        long[] sorted = s.snapshot();
+        System.out.printf("%-10s %9d %8d %9.1f %9.2f %9.2f %9.2f%n", label, sorted.length, s.errors.get(),
+                (double) sorted.length / durationSec, millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.99)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // ----- Args -----
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                out.put(key, args[++i]);
+            } else {
+                out.put(key, "true");
+            }
+        }
+        return out;
+    }
+
+    private static Map<Op, Integer> parseMix(String mix) {
+        Map<Op, Integer> out = new EnumMap<>(Op.class);
+        if (mix == null || mix.isBlank()) {
+            for (Op op : Op.values())
+                out.put(op, op.defaultWeight);
+            return out;
+        }
+        for (String part : mix.split(",")) {
+            String[] kv = part.split("=");
+            if (kv.length != 2)
+                throw new IllegalArgumentException("Bad --mix entry: " + part + " (expected op=weight)");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0)
+                out.put(Op.valueOf(kv[0].trim().toUpperCase()), weight);
+        }
+        if (out.isEmpty())
+            throw new IllegalArgumentException("--mix has no positive weights; ops: " + Arrays.toString(Op.values()));
+        return out;
+    }
+
+    /** Latency samples, appended by any worker, sorted once at the end. */
+    private static final class Stats {
+        private final List<long[]> chunks = new ArrayList<>();
+        private long[] current = new long[4096];
+        private int size;
+        final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos) {
+            if (size == current.length) {
+                chunks.add(current);
+                current = new long[current.length];
+                size = 0;
+            }
+            current[size++] = nanos;
+        }
+
+        synchronized long[] snapshot() {
+            int total = chunks.size() * current.length + size;
+            long[] out = new long[total];
+            int pos = 0;
+            for (long[] chunk : chunks) {
+                System.arraycopy(chunk, 0, out, pos, chunk.length);
+                pos += chunk.length;
+            }
+            System.arraycopy(current, 0, out, pos, size);
+            Arrays.sort(out);
+            return out;
+        }
+    }
+}
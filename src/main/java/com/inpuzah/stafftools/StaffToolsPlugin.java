@@ -4,6 +4,7 @@ import com.inpuzah.stafftools.commands.*;
 import com.inpuzah.stafftools.managers.DatabaseManager;
 import com.inpuzah.stafftools.listeners.*;
 import com.inpuzah.stafftools.managers.*;
+import com.inpuzah.stafftools.utils.MessageUtil;
 import net.luckperms.api.LuckPerms;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -17,10 +18,14 @@ public class StaffToolsPlugin extends JavaPlugin {
     // Managers
     private com.inpuzah.stafftools.debug.DebugManager debugManager;
     private DatabaseManager databaseManager;
+    private CooldownStore cooldownStore;
     private PunishmentManager punishmentManager;
     private StaffModeManager staffModeManager;
     private VanishManager vanishManager;
+    private PresenceIndicators presenceIndicators;
+    private StaffAudience staffAudience;
     private FreezeManager freezeManager;
+    private ChatGateManager chatGateManager;
     private AuditManager auditManager;
     private NotesManager notesManager;
     private ReportManager reportManager;
@@ -59,11 +64,15 @@ public class StaffToolsPlugin extends JavaPlugin {
 
         // Managers
         debugManager = new com.inpuzah.stafftools.debug.DebugManager(this);
+        cooldownStore = new CooldownStore(this);
         auditManager = new AuditManager(this);
+        staffAudience = new StaffAudience(this);
         punishmentManager = new PunishmentManager(this);
+        presenceIndicators = new PresenceIndicators(this);
         staffModeManager = new StaffModeManager(this);
         vanishManager = new VanishManager(this);
         freezeManager = new FreezeManager(this);
+        chatGateManager = new ChatGateManager(this);
         notesManager = new NotesManager(this);
         reportManager = new ReportManager(this);
         appealManager = new AppealManager(this);
@@ -103,10 +112,43 @@ public class StaffToolsPlugin extends JavaPlugin {
             }
         }
 
-        // Close database
+        // Stop receiving punishment changes from other servers
+        if (punishmentManager != null) {
+            try {
+                punishmentManager.shutdown();
+            } catch (Exception ignored) {
+            }
+        }
+
+        // Flush pending audit entries while the pool is still open
+        if (auditManager != null) {
+            try {
+                auditManager.shutdown();
+            } catch (Exception e) {
+                getLogger().warning("Failed to flush audit log: " + e.getMessage());
+            }
+        }
+
+        // Write out buffered debug entries and stop the debug consumer thread
+        if (debugManager != null) {
+            try {
+                debugManager.shutdown();
+            } catch (Exception ignored) {
+            }
+        }
+
+        // Send any queued Discord notifications
+        if (discordManager != null) {
+            try {
+                discordManager.shutdown();
+            } catch (Exception ignored) {
+            }
+        }
+
+        // Write out queued database writes, then close the pools
         if (databaseManager != null) {
             try {
-                databaseManager.close();
+                databaseManager.shutdown();
             } catch (Exception ignored) {
             }
         }
@@ -225,6 +267,7 @@ public class StaffToolsPlugin extends JavaPlugin {
      */
     public void reloadStaffTools() {
         reloadConfig();
+        MessageUtil.reload();
 
         // Managers with scheduled tasks / runtime integration
         if (debugManager != null) {
@@ -234,6 +277,27 @@ public class StaffToolsPlugin extends JavaPlugin {
                 getLogger().warning("Failed to reload DebugManager: " + e.getMessage());
             }
         }
+        if (auditManager != null) {
+            try {
+                auditManager.reload();
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload AuditManager: " + e.getMessage());
+            }
+        }
+        if (presenceIndicators != null) {
+            try {
+                presenceIndicators.reload();
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload PresenceIndicators: " + e.getMessage());
+            }
+        }
+        if (staffAudience != null) {
+            try {
+                staffAudience.reload();
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload StaffAudience: " + e.getMessage());
+            }
+        }
         if (vanishManager != null) {
             try {
                 vanishManager.reload();
@@ -241,6 +305,20 @@ public class StaffToolsPlugin extends JavaPlugin {
                 getLogger().warning("Failed to reload VanishManager: " + e.getMessage());
             }
         }
+        if (appealManager != null) {
+            try {
+                appealManager.reload();
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload AppealManager: " + e.getMessage());
+            }
+        }
+        if (chatGateManager != null) {
+            try {
+                chatGateManager.reload();
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload ChatGateManager: " + e.getMessage());
+            }
+        }
         if (discordManager != null) {
             try {
                 discordManager.reload();
@@ -263,6 +341,10 @@ public class StaffToolsPlugin extends JavaPlugin {
         return databaseManager;
     }
 
+    public CooldownStore getCooldownStore() {
+        return cooldownStore;
+    }
+
     public PunishmentManager getPunishmentManager() {
         return punishmentManager;
     }
@@ -275,10 +357,22 @@ public class StaffToolsPlugin extends JavaPlugin {
         return vanishManager;
     }
 
+    public PresenceIndicators getPresenceIndicators() {
+        return presenceIndicators;
+    }
+
+    public StaffAudience getStaffAudience() {
+        return staffAudience;
+    }
+
     public FreezeManager getFreezeManager() {
         return freezeManager;
     }
 
+    public ChatGateManager getChatGateManager() {
+        return chatGateManager;
+    }
+
     public AuditManager getAuditManager() {
         return auditManager;
     }
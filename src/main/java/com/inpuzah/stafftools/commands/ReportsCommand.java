@@ -35,7 +35,8 @@ public class ReportsCommand implements CommandExecutor {
             for (Report r : reports) {
                 String who = r.getReportedName() != null ? r.getReportedName() : "unknown";
                 String why = r.getReason() != null ? r.getReason() : "no reason";
-                MessageUtil.sendMessage(sender, "&7- &f" + who + " &8— &7" + why);
+                String count = r.getReportCount() > 1 ? " &c(x" + r.getReportCount() + ")" : "";
+                MessageUtil.sendMessage(sender, "&7- &f" + who + count + " &8— &7" + why);
                 if (++shown >= 20) {
                     MessageUtil.sendMessage(sender, "&8…and more");
                     break;
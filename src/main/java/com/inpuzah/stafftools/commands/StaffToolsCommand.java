@@ -25,6 +25,9 @@ public class StaffToolsCommand implements CommandExecutor {
         if (args.length == 0) {
             sender.sendMessage(MessageUtil.colorize("&c&lStaffTools &7v" + plugin.getPluginMeta().getVersion()));
             sender.sendMessage(MessageUtil.colorize("&7/stafftools reload &f- Reload config"));
+            sender.sendMessage(MessageUtil.colorize("&7/stafftools audit &f- Audit queue stats"));
+            sender.sendMessage(MessageUtil.colorize("&7/stafftools sync &f- Cross-server sync stats"));
+            sender.sendMessage(MessageUtil.colorize("&7/stafftools cooldowns &f- Cooldown store stats"));
             return true;
         }
 
@@ -35,6 +38,45 @@ public class StaffToolsCommand implements CommandExecutor {
             return true;
         }
 
+        if (args[0].equalsIgnoreCase("audit")) {
+            var audit = plugin.getAuditManager();
+            MessageUtil.sendMessage(sender, "&eAudit queue: &f" + audit.getQueueDepth() + "&7/&f"
+                    + audit.getQueueCapacity() + " &7(peak &f" + audit.getPeakQueueDepth() + "&7)");
+            MessageUtil.sendMessage(sender, "&7Enqueued: &f" + audit.getEnqueuedCount() + " &7Written: &f"
+                    + audit.getWrittenCount() + " &7Dropped: &c" + audit.getDroppedCount());
+            MessageUtil.sendMessage(sender, "&7Batches: &f" + audit.getBatchCount() + " &7Failed: &c"
+                    + audit.getFailedBatchCount());
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("sync")) {
+            var bus = plugin.getPunishmentManager().getBus();
+            var feed = plugin.getPunishmentManager().getChangeFeed();
+            if (!bus.isEnabled() && feed == null) {
+                MessageUtil.sendMessage(sender, "&7Cross-server sync is disabled (&fnetwork.sync&7).");
+                return true;
+            }
+            if (bus.isEnabled()) {
+                MessageUtil.sendMessage(sender, "&eSync: &7Published: &f" + bus.getPublishedCount()
+                        + " &7Received: &f" + bus.getReceivedCount() + " &7Rejected: &c" + bus.getRejectedCount());
+            }
+            if (feed != null) {
+                MessageUtil.sendMessage(sender, "&ePolling: &7Polls: &f" + feed.getPollCount() + " &7Rows: &f"
+                        + feed.getRowsRead() + " &7Interval: &f" + feed.getIntervalMs() + "ms");
+            }
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("cooldowns")) {
+            var cooldowns = plugin.getCooldownStore();
+            String storage = cooldowns.isShared() ? "shared" : cooldowns.isPersistent() ? "persistent" : "memory only";
+            MessageUtil.sendMessage(sender, "&eCooldowns: &f" + cooldowns.size() + " &7running (" + storage + ")");
+            MessageUtil.sendMessage(sender, "&7Hits: &f" + cooldowns.getHitCount() + " &7Misses: &f"
+                    + cooldowns.getMissCount() + " &7DB lookups: &f" + cooldowns.getLookupCount()
+                    + " &7Evicted: &f" + cooldowns.getEvictedCount());
+            return true;
+        }
+
         return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.inpuzah.stafftools.database.models;
+
+import java.util.List;
+
+/**
+ * One keyset page of a player's punishment history, newest first.
+ * The cursor of the last row is what the next page continues from.
+ */
+public class PunishmentHistoryPage {
+
+    private final List<Punishment> punishments;
+    private final boolean hasMore;
+
+    public PunishmentHistoryPage(List<Punishment> punishments, boolean hasMore) {
+        this.punishments = List.copyOf(punishments);
+        this.hasMore = hasMore;
+    }
+
+    public List<Punishment> getPunishments() { return punishments; }
+    public boolean hasMore() { return hasMore; }
+    public boolean isEmpty() { return punishments.isEmpty(); }
+
+    /** Timestamp of the last row, or {@code Long.MAX_VALUE} for an empty page. */
+    public long getCursorTimestamp() {
+        return punishments.isEmpty() ? Long.MAX_VALUE : punishments.get(punishments.size() - 1).getTimestamp();
+    }
+
+    /** Id of the last row, or {@code Integer.MAX_VALUE} for an empty page. */
+    public int getCursorId() {
+        return punishments.isEmpty() ? Integer.MAX_VALUE : punishments.get(punishments.size() - 1).getId();
+    }
+}
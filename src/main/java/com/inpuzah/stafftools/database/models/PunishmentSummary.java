@@ -0,0 +1,39 @@
+package com.inpuzah.stafftools.database.models;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-player punishment counts plus the most recent punishment, computed with one
+ * grouped query. Immutable once built.
+ */
+public class PunishmentSummary {
+
+    public static final PunishmentSummary EMPTY = new PunishmentSummary(new EnumMap<>(PunishmentType.class), 0,
+            null, null);
+
+    private final Map<PunishmentType, Integer> totalsByType;
+    private final int total;
+    private final int active;
+    private final PunishmentType latestType;
+    private final String latestReason;
+
+    public PunishmentSummary(Map<PunishmentType, Integer> totalsByType, int active,
+                             PunishmentType latestType, String latestReason) {
+        this.totalsByType = new EnumMap<>(PunishmentType.class);
+        this.totalsByType.putAll(totalsByType);
+        int sum = 0;
+        for (int count : totalsByType.values()) sum += count;
+        this.total = sum;
+        this.active = active;
+        this.latestType = latestType;
+        this.latestReason = latestReason;
+    }
+
+    public int getTotal() { return total; }
+    public int getActive() { return active; }
+    public int getCount(PunishmentType type) { return totalsByType.getOrDefault(type, 0); }
+    public PunishmentType getLatestType() { return latestType; }
+    public String getLatestReason() { return latestReason; }
+    public boolean isEmpty() { return total == 0; }
+}
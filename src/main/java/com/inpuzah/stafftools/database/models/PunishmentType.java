@@ -1,9 +1,36 @@
 package com.inpuzah.stafftools.database.models;
 
 public enum PunishmentType {
-    WARN,
-    MUTE,
-    KICK,
-    BAN,
-    BUILDBAN
-}
\ No newline at end of file
+    WARN(1),
+    MUTE(2),
+    KICK(3),
+    BAN(4),
+    BUILDBAN(5);
+
+    // Stored in compact-encoded tables; never renumber, only add.
+    private final int code;
+
+    private static final PunishmentType[] BY_CODE = new PunishmentType[8];
+
+    static {
+        for (PunishmentType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    PunishmentType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static PunishmentType fromCode(int code) {
+        PunishmentType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown punishment type code " + code);
+        }
+        return type;
+    }
+}
@@ -16,6 +16,7 @@ public class Report {
     private Long handledAt;
     private String handlerNote;
     private String serverName;
+    private int reportCount = 1;
 
     public Report(UUID reporterUuid, String reporterName, UUID reportedUuid,
                   String reportedName, String reason) {
@@ -67,4 +68,7 @@ public class Report {
     public void setHandlerNote(String handlerNote) { this.handlerNote = handlerNote; }
     public String getServerName() { return serverName; }
     public void setServerName(String serverName) { this.serverName = serverName; }
+    /** Reports merged into this one (see ReportManager aggregation); 1 for a single report. */
+    public int getReportCount() { return reportCount; }
+    public void setReportCount(int reportCount) { this.reportCount = reportCount; }
 }
\ No newline at end of file
@@ -2,42 +2,55 @@ package com.inpuzah.stafftools.debug;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import com.inpuzah.stafftools.managers.DiscordDispatcher;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Comprehensive debug logging system.
- * - Keeps a ring buffer of recent debug lines.
+ * - Keeps a lock-free ring buffer of recent debug entries, formatted only when read.
+ * - A single consumer thread writes entries to console and Discord, so logging
+ *   threads only pay for one allocation and an atomic increment.
  * - Sends debug messages to Discord channel (rate-limited and filterable).
  * - Supports categorized logging with severity levels.
  */
 public final class DebugManager {
 
+    private static final long CONSUMER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
     private final StaffToolsPlugin plugin;
 
-    private boolean enabled;
-    private int bufferSize;
-    private boolean discordEnabled;
-    private long discordMinIntervalMs;
-    private String discordChannelId;
-    private Set<String> discordCategories;
-    private DebugLevel minDiscordLevel;
-    private boolean logToConsole;
+    private volatile boolean enabled;
+    private volatile boolean discordEnabled;
+    private volatile long discordMinIntervalMs;
+    private volatile Set<String> discordCategories;
+    private volatile DebugLevel minDiscordLevel;
+    private volatile boolean logToConsole;
+
+    private volatile DebugRing<DebugEntry> ring;
+    private volatile long carriedOver; // entries copied into the current ring on resize
 
-    private final Deque<DebugEntry> ring = new ArrayDeque<>();
-    private final Map<String, Long> lastDiscordSend = new ConcurrentHashMap<>();
+    // Consumer-thread state
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private DebugRing<DebugEntry> consumedRing;
+    private long consumed;
+    private volatile long skipped;
+    private final Map<String, Long> lastDiscordSend = new HashMap<>();
 
-    // Discord reflection fields
-    private Plugin discordRelay;
-    private Object bridge;
-    private Method getJdaMethod;
+    // Discord
+    private volatile DiscordDispatcher discordDispatcher;
 
     public enum DebugLevel {
         TRACE(0, "TRACE", "🔍"),
@@ -69,26 +82,55 @@ public final class DebugManager {
         }
     }
 
-    private static class DebugEntry {
-        final Instant timestamp;
+    private static final class DebugEntry implements DebugRing.Sequenced {
+        final long timestamp;
         final String category;
         final DebugLevel level;
         final String message;
-        final String throwableSummary;
+        final Throwable throwable;
+        private long sequence;
 
         DebugEntry(String category, DebugLevel level, String message, Throwable t) {
-            this.timestamp = Instant.now();
+            this.timestamp = System.currentTimeMillis();
             this.category = category;
             this.level = level;
             this.message = message;
-            this.throwableSummary = t != null
-                    ? (t.getClass().getSimpleName() + ": " + t.getMessage())
+            this.throwable = t;
+        }
+
+        private DebugEntry(DebugEntry other) {
+            this.timestamp = other.timestamp;
+            this.category = other.category;
+            this.level = other.level;
+            this.message = other.message;
+            this.throwable = other.throwable;
+        }
+
+        DebugEntry copy() {
+            return new DebugEntry(this);
+        }
+
+        @Override
+        public long sequence() {
+            return sequence;
+        }
+
+        @Override
+        public void sequence(long seq) {
+            this.sequence = seq;
+        }
+
+        String throwableSummary() {
+            return throwable != null
+                    ? (throwable.getClass().getSimpleName() + ": " + throwable.getMessage())
                     : null;
         }
 
         String format() {
+            String throwableSummary = throwableSummary();
             StringBuilder sb = new StringBuilder();
-            sb.append("[").append(DateTimeFormatter.ISO_INSTANT.format(timestamp)).append("] ");
+            sb.append("#").append(sequence).append(" ");
+            sb.append("[").append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(timestamp))).append("] ");
             sb.append("[").append(level.name()).append("] ");
             sb.append("[").append(category).append("] ");
             sb.append(message);
@@ -99,6 +141,7 @@ public final class DebugManager {
         }
 
         String formatDiscord() {
+            String throwableSummary = throwableSummary();
             StringBuilder sb = new StringBuilder();
             sb.append(level.getEmoji()).append(" **").append(level.name()).append("** `[").append(category)
                     .append("]`\n");
@@ -113,16 +156,19 @@ public final class DebugManager {
     public DebugManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
         reload();
+        this.consumer = new Thread(this::consumeLoop, "StaffTools-Debug");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
     }
 
     public void reload() {
         this.enabled = plugin.getConfig().getBoolean("debug.enabled", false);
-        this.bufferSize = Math.max(50, plugin.getConfig().getInt("debug.buffer-size", 250));
+        int bufferSize = Math.max(50, plugin.getConfig().getInt("debug.buffer-size", 250));
         this.logToConsole = plugin.getConfig().getBoolean("debug.log-to-console", true);
 
         this.discordEnabled = plugin.getConfig().getBoolean("debug.discord.enabled", false);
         this.discordMinIntervalMs = Math.max(250L, plugin.getConfig().getLong("debug.discord.rate-limit-ms", 2000L));
-        this.discordChannelId = plugin.getConfig().getString("debug.discord.channel-id", "");
+        String discordChannelId = plugin.getConfig().getString("debug.discord.channel-id", "");
 
         // Parse categories to send to Discord
         List<String> categoryList = plugin.getConfig().getStringList("debug.discord.categories");
@@ -138,15 +184,35 @@ public final class DebugManager {
             this.minDiscordLevel = DebugLevel.DEBUG;
         }
 
-        trim();
+        resizeRing(bufferSize);
 
+        DiscordDispatcher old = discordDispatcher;
+        discordDispatcher = null;
+        if (old != null) {
+            old.shutdown();
+        }
         if (discordEnabled) {
-            setupDiscordRelay();
+            setupDiscordRelay(discordChannelId);
+        }
+    }
+
+    private void resizeRing(int bufferSize) {
+        DebugRing<DebugEntry> old = ring;
+        if (old != null && old.window() == bufferSize)
+            return;
+        DebugRing<DebugEntry> fresh = new DebugRing<>(bufferSize);
+        if (old != null) {
+            // Carry over what is still in the window as copies, so the old ring stays
+            // intact for the consumer to finish draining.
+            old.forEach(entry -> fresh.add(entry.copy()));
         }
+        carriedOver = fresh.head();
+        ring = fresh;
+        LockSupport.unpark(consumer);
     }
 
-    private void setupDiscordRelay() {
-        discordRelay = Bukkit.getPluginManager().getPlugin("DiscordRelay");
+    private void setupDiscordRelay(String discordChannelId) {
+        Plugin discordRelay = Bukkit.getPluginManager().getPlugin("DiscordRelay");
 
         if (discordRelay == null) {
             plugin.getLogger().warning("Debug Discord integration enabled but DiscordRelay plugin not found!");
@@ -156,10 +222,19 @@ public final class DebugManager {
 
         try {
             Method getDiscordMethod = discordRelay.getClass().getDeclaredMethod("getDiscord");
-            bridge = getDiscordMethod.invoke(discordRelay);
-            Class<?> bridgeClass = bridge.getClass();
-            getJdaMethod = bridgeClass.getDeclaredMethod("getJda");
-
+            Object bridge = getDiscordMethod.invoke(discordRelay);
+            MethodHandle getJda = MethodHandles.publicLookup()
+                    .unreflect(bridge.getClass().getDeclaredMethod("getJda"))
+                    .bindTo(bridge)
+                    .asType(MethodType.methodType(Object.class));
+
+            discordDispatcher = new DiscordDispatcher(plugin.getLogger(), () -> {
+                try {
+                    return (Object) getJda.invokeExact();
+                } catch (Throwable t) {
+                    return null;
+                }
+            }, discordChannelId, 100, 1000L, discordMinIntervalMs);
             plugin.getLogger().info("Debug Discord integration enabled.");
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to setup Debug Discord integration: " + e.getMessage());
@@ -167,22 +242,10 @@ public final class DebugManager {
         }
     }
 
-    private Object getDebugChannel() {
-        if (!discordEnabled || bridge == null || discordChannelId == null || discordChannelId.isEmpty()) {
-            return null;
-        }
-
-        try {
-            Object jda = getJdaMethod.invoke(bridge);
-            Method getTextChannelById = jda.getClass().getMethod("getTextChannelById", String.class);
-            return getTextChannelById.invoke(jda, discordChannelId);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
+    // Consumer thread only.
     private void sendToDiscord(DebugEntry entry) {
-        if (!discordEnabled)
+        DiscordDispatcher dispatcher = discordDispatcher;
+        if (!discordEnabled || dispatcher == null)
             return;
 
         // Check if level meets minimum
@@ -190,7 +253,8 @@ public final class DebugManager {
             return;
 
         // Check if category is allowed
-        if (!discordCategories.contains("ALL") && !discordCategories.contains(entry.category)) {
+        Set<String> categories = discordCategories;
+        if (!categories.contains("ALL") && !categories.contains(entry.category)) {
             return;
         }
 
@@ -203,34 +267,85 @@ public final class DebugManager {
         }
 
         lastDiscordSend.put(key, now);
+        dispatcher.submit(entry.formatDiscord());
+    }
+
+    private void consumeLoop() {
+        while (running) {
+            drainRing();
+            LockSupport.parkNanos(this, CONSUMER_IDLE_NANOS);
+        }
+        drainRing();
+    }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getDebugChannel();
-            if (channel == null)
+    private void drainRing() {
+        DebugRing<DebugEntry> r = ring;
+        if (r != consumedRing) {
+            if (consumedRing != null) {
+                // Resized on reload: finish the old ring, then skip the carried-over copies.
+                drain(consumedRing);
+                consumed = carriedOver;
+            }
+            consumedRing = r;
+        }
+        drain(r);
+    }
+
+    private void drain(DebugRing<DebugEntry> r) {
+        long head = r.head();
+        long tail = r.tail(head);
+        if (consumed < tail) {
+            // Producers lapped us; those entries are lost for console/Discord.
+            skipped += tail - consumed;
+            consumed = tail;
+        }
+        while (consumed < head) {
+            DebugEntry entry = r.get(consumed);
+            if (entry == null) {
+                // Claimed but not yet published; pick it up on the next pass.
                 return;
+            }
+            write(entry);
+            consumed++;
+        }
+    }
 
-            try {
-                Method sendMessage = null;
-                for (Method m : channel.getClass().getMethods()) {
-                    if (!m.getName().equals("sendMessage"))
-                        continue;
-                    Class<?>[] params = m.getParameterTypes();
-                    if (params.length == 1
-                            && (params[0] == String.class || CharSequence.class.isAssignableFrom(params[0]))) {
-                        sendMessage = m;
-                        break;
-                    }
-                }
-                if (sendMessage == null)
-                    return;
-
-                Object action = sendMessage.invoke(channel, entry.formatDiscord());
-                Method queue = action.getClass().getMethod("queue");
-                queue.invoke(action);
-            } catch (Exception e) {
-                // Silent failure to avoid log spam
+    private void write(DebugEntry entry) {
+        // Log to console if enabled
+        if (logToConsole) {
+            String line = "[DEBUG] " + entry.format();
+            if (entry.level.isAtLeast(DebugLevel.ERROR)) {
+                plugin.getLogger().severe(line);
+            } else if (entry.level.isAtLeast(DebugLevel.WARN)) {
+                plugin.getLogger().warning(line);
+            } else {
+                plugin.getLogger().info(line);
             }
-        });
+        }
+
+        // Send to Discord if configured
+        sendToDiscord(entry);
+    }
+
+    /** Stops the consumer thread after writing out what is left. */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(2000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        DiscordDispatcher dispatcher = discordDispatcher;
+        discordDispatcher = null;
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    /** Entries overwritten before the consumer thread could write them out. */
+    public long getSkippedCount() {
+        return skipped;
     }
 
     public boolean isEnabled() {
@@ -283,72 +398,52 @@ public final class DebugManager {
         if (!enabled)
             return;
 
-        DebugEntry entry = new DebugEntry(category, level, message, t);
-
-        synchronized (ring) {
-            ring.addLast(entry);
-            trim();
-        }
-
-        // Log to console if enabled
-        if (logToConsole) {
-            String logLevel = level.getPriority() >= DebugLevel.ERROR.getPriority() ? "SEVERE"
-                    : level.getPriority() >= DebugLevel.WARN.getPriority() ? "WARNING"
-                            : "INFO";
-
-            switch (logLevel) {
-                case "SEVERE" -> plugin.getLogger().severe("[DEBUG] " + entry.format());
-                case "WARNING" -> plugin.getLogger().warning("[DEBUG] " + entry.format());
-                default -> plugin.getLogger().info("[DEBUG] " + entry.format());
-            }
+        ring.add(new DebugEntry(category, level, message, t));
+        if (consumer != null && (logToConsole || discordEnabled)) {
+            LockSupport.unpark(consumer);
         }
-
-        // Send to Discord if configured
-        sendToDiscord(entry);
     }
 
     public List<String> dump(int maxLines) {
         int n = Math.max(1, maxLines);
-        synchronized (ring) {
-            int start = Math.max(0, ring.size() - n);
-            List<String> out = new ArrayList<>(n);
-            int i = 0;
-            for (DebugEntry entry : ring) {
-                if (i++ >= start)
-                    out.add(entry.format());
-            }
-            return out;
+        DebugRing<DebugEntry> r = ring;
+        long head = r.head();
+        long start = Math.max(r.tail(head), head - n);
+        List<String> out = new ArrayList<>((int) (head - start));
+        for (long seq = start; seq < head; seq++) {
+            DebugEntry entry = r.get(seq);
+            if (entry != null)
+                out.add(entry.format());
         }
+        return out;
     }
 
     public List<String> dumpByCategory(String category, int maxLines) {
         int n = Math.max(1, maxLines);
-        synchronized (ring) {
-            List<String> out = new ArrayList<>();
-            for (DebugEntry entry : ring) {
-                if (entry.category.equalsIgnoreCase(category)) {
-                    out.add(entry.format());
-                    if (out.size() >= n)
-                        break;
-                }
-            }
-            return out;
-        }
+        List<DebugEntry> matched = new ArrayList<>();
+        ring.forEach(entry -> {
+            if (matched.size() < n && entry.category.equalsIgnoreCase(category))
+                matched.add(entry);
+        });
+        return formatAll(matched);
     }
 
     public List<String> dumpByLevel(DebugLevel minLevel, int maxLines) {
         int n = Math.max(1, maxLines);
-        synchronized (ring) {
-            List<String> out = new ArrayList<>();
-            for (DebugEntry entry : ring) {
-                if (entry.level.isAtLeast(minLevel)) {
-                    out.add(entry.format());
-                    if (out.size() >= n)
-                        break;
-                }
-            }
-            return out;
+        List<DebugEntry> matched = new ArrayList<>();
+        ring.forEach(entry -> {
+            if (matched.size() < n && entry.level.isAtLeast(minLevel))
+                matched.add(entry);
+        });
+        return formatAll(matched);
+    }
+
+    private static List<String> formatAll(List<DebugEntry> entries) {
+        List<String> out = new ArrayList<>(entries.size());
+        for (DebugEntry entry : entries) {
+            out.add(entry.format());
         }
+        return out;
     }
 
     public void sendDumpTo(CommandSender sender, int maxLines) {
@@ -368,20 +463,8 @@ public final class DebugManager {
     }
 
     public Set<String> getCategories() {
-        synchronized (ring) {
-            Set<String> categories = new HashSet<>();
-            for (DebugEntry entry : ring) {
-                categories.add(entry.category);
-            }
-            return categories;
-        }
-    }
-
-    private void trim() {
-        synchronized (ring) {
-            while (ring.size() > bufferSize) {
-                ring.removeFirst();
-            }
-        }
+        Set<String> categories = new HashSet<>();
+        ring.forEach(entry -> categories.add(entry.category));
+        return categories;
     }
 }
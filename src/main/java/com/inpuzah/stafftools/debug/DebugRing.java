@@ -0,0 +1,74 @@
+package com.inpuzah.stafftools.debug;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-capacity multi-producer ring of sequenced entries.
+ *
+ * A producer claims a sequence number with one atomic increment and publishes the
+ * entry into slot {@code seq & mask}; the oldest entry is overwritten in place.
+ * Readers never block writers: a slot only counts as holding sequence {@code s} if
+ * the entry stored there carries that sequence, so half-published or overwritten
+ * slots are simply skipped.
+ */
+final class DebugRing<E extends DebugRing.Sequenced> {
+
+    interface Sequenced {
+        long sequence();
+
+        void sequence(long seq);
+    }
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final int window;
+    private final AtomicLong next = new AtomicLong();
+
+    /** @param window how many of the most recent entries readers see */
+    DebugRing(int window) {
+        this.window = Math.max(1, window);
+        int capacity = Integer.highestOneBit(Math.max(1, this.window - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    int window() {
+        return window;
+    }
+
+    /** Publishes an entry and returns its sequence number. */
+    long add(E entry) {
+        long seq = next.getAndIncrement();
+        entry.sequence(seq);
+        slots.set((int) (seq & mask), entry);
+        return seq;
+    }
+
+    /** Sequence the next {@link #add} will claim. */
+    long head() {
+        return next.get();
+    }
+
+    /** Oldest sequence still readable given the current head. */
+    long tail(long head) {
+        return Math.max(0L, head - window);
+    }
+
+    /** The entry for {@code seq}, or null if it is not published yet or was overwritten. */
+    E get(long seq) {
+        E e = slots.get((int) (seq & mask));
+        return (e != null && e.sequence() == seq) ? e : null;
+    }
+
+    /** Visits the readable window oldest first. */
+    void forEach(Consumer<? super E> action) {
+        long head = head();
+        for (long seq = tail(head); seq < head; seq++) {
+            E e = get(seq);
+            if (e != null)
+                action.accept(e);
+        }
+    }
+}
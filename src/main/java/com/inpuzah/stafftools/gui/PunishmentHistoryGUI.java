@@ -2,6 +2,8 @@ package com.inpuzah.stafftools.gui;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentHistoryPage;
+import com.inpuzah.stafftools.database.models.PunishmentSummary;
 import com.inpuzah.stafftools.utils.MessageUtil;
 import com.inpuzah.stafftools.utils.TimeUtil;
 import net.kyori.adventure.text.Component;
@@ -23,7 +25,11 @@ public class PunishmentHistoryGUI {
     private final Player target;
     @NotNull
     private final Inventory inventory;
-    private List<Punishment> punishments;
+    // Pages are fetched by keyset cursor as the viewer pages forward; only touched on the main thread.
+    private final List<PunishmentHistoryPage> pages = new ArrayList<>();
+    private boolean prefetching = false;
+    private boolean advanceWhenLoaded = false;
+    private PunishmentSummary summary;
     private int page = 0;
     private static final int ITEMS_PER_PAGE = 45;
 
@@ -40,16 +46,73 @@ public class PunishmentHistoryGUI {
     }
 
     private void loadHistory() {
-        plugin.getPunishmentManager().getPlayerHistory(target.getUniqueId()).thenAccept(history -> {
-            this.punishments = history;
-            Bukkit.getScheduler().runTask(plugin, this::setupGUI);
-        });
+        plugin.getPunishmentManager().getPlayerSummary(target.getUniqueId()).thenAccept(loaded ->
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    this.summary = loaded;
+                    addNavigationButtons();
+                }));
+        fetchNextPage();
+    }
+
+    /** Loads the page after the last one we have, in the background. */
+    private void fetchNextPage() {
+        if (prefetching)
+            return;
+        long beforeTimestamp = Long.MAX_VALUE;
+        int beforeId = Integer.MAX_VALUE;
+        if (!pages.isEmpty()) {
+            PunishmentHistoryPage last = pages.get(pages.size() - 1);
+            if (!last.hasMore())
+                return;
+            beforeTimestamp = last.getCursorTimestamp();
+            beforeId = last.getCursorId();
+        }
+        prefetching = true;
+        plugin.getPunishmentManager()
+                .getPlayerHistoryPage(target.getUniqueId(), beforeTimestamp, beforeId, ITEMS_PER_PAGE)
+                .whenComplete((loaded, e) -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (e == null) {
+                        onPageLoaded(loaded);
+                    } else {
+                        onPageFailed();
+                    }
+                }));
+    }
+
+    private void onPageFailed() {
+        // Allow another attempt on the next click
+        prefetching = false;
+        advanceWhenLoaded = false;
+        MessageUtil.sendMessage(viewer, "&cFailed to load punishment history. Try again.");
+    }
+
+    private void onPageLoaded(PunishmentHistoryPage loaded) {
+        prefetching = false;
+        pages.add(loaded);
+        if (advanceWhenLoaded) {
+            advanceWhenLoaded = false;
+            page++;
+        }
+        if (page >= pages.size() - 1) {
+            setupGUI();
+        } else {
+            addNavigationButtons();
+        }
+        // Stay one page ahead of the viewer.
+        if (pages.size() <= page + 1) {
+            fetchNextPage();
+        }
+    }
+
+    private List<Punishment> currentPage() {
+        return page < pages.size() ? pages.get(page).getPunishments() : List.of();
     }
 
     private void setupGUI() {
         inventory.clear();
 
-        if (punishments == null || punishments.isEmpty()) {
+        List<Punishment> punishments = currentPage();
+        if (punishments.isEmpty() && page == 0) {
             ItemStack noHistory = createItem(
                     Material.BARRIER,
                     "&c&lNo History",
@@ -60,12 +123,8 @@ public class PunishmentHistoryGUI {
             return;
         }
 
-        int start = page * ITEMS_PER_PAGE;
-        int end = Math.min(start + ITEMS_PER_PAGE, punishments.size());
-
-        for (int i = start; i < end; i++) {
-            Punishment punishment = punishments.get(i);
-            inventory.setItem(i - start, createPunishmentItem(punishment));
+        for (int i = 0; i < punishments.size(); i++) {
+            inventory.setItem(i, createPunishmentItem(punishments.get(i)));
         }
 
         addNavigationButtons();
@@ -128,7 +187,7 @@ public class PunishmentHistoryGUI {
         }
 
         // Next page
-        if (page < maxPages - 1) {
+        if (hasNextPage()) {
             ItemStack next = createItem(
                     Material.ARROW,
                     "&e&lNext Page",
@@ -140,10 +199,10 @@ public class PunishmentHistoryGUI {
         ItemStack back = createItem(Material.BARRIER, "&c&lBack", "&7Return to punishment menu");
         inventory.setItem(49, back);
 
-        // Info item
-        int total = punishments != null ? punishments.size() : 0;
-        long active = punishments != null ? punishments.stream().filter(Punishment::isActive).count() : 0;
-        long inactive = total - active;
+        // Info item (counts come from the cached summary, not from loaded pages)
+        int total = summary != null ? summary.getTotal() : 0;
+        int active = summary != null ? summary.getActive() : 0;
+        int inactive = total - active;
 
         ItemStack info = createItem(
                 Material.BOOK,
@@ -155,8 +214,17 @@ public class PunishmentHistoryGUI {
     }
 
     private int getMaxPages() {
-        int total = punishments != null ? punishments.size() : 0;
-        return Math.max(1, (int) Math.ceil((double) total / ITEMS_PER_PAGE));
+        if (summary != null) {
+            return Math.max(1, (int) Math.ceil((double) summary.getTotal() / ITEMS_PER_PAGE));
+        }
+        boolean more = !pages.isEmpty() && pages.get(pages.size() - 1).hasMore();
+        return Math.max(1, pages.size() + (more ? 1 : 0));
+    }
+
+    private boolean hasNextPage() {
+        if (page + 1 < pages.size())
+            return true;
+        return !pages.isEmpty() && pages.get(pages.size() - 1).hasMore();
     }
 
     private ItemStack createItem(Material material, String name, String... lore) {
@@ -180,16 +248,23 @@ public class PunishmentHistoryGUI {
         if (slot == 48 && page > 0) {
             page--;
             setupGUI();
-        } else if (slot == 50 && page < getMaxPages() - 1) {
-            page++;
-            setupGUI();
+        } else if (slot == 50 && hasNextPage()) {
+            if (page + 1 < pages.size()) {
+                page++;
+                setupGUI();
+                fetchNextPage();
+            } else {
+                // Next page is still in flight; show it as soon as it lands.
+                advanceWhenLoaded = true;
+                fetchNextPage();
+            }
         } else if (slot == 49) {
             viewer.closeInventory();
             new PunishmentGUI(plugin, viewer, target).open();
-        } else if (slot < ITEMS_PER_PAGE && punishments != null) {
-            int index = page * ITEMS_PER_PAGE + slot;
-            if (index < punishments.size()) {
-                Punishment punishment = punishments.get(index);
+        } else if (slot < ITEMS_PER_PAGE) {
+            List<Punishment> punishments = currentPage();
+            if (slot < punishments.size()) {
+                Punishment punishment = punishments.get(slot);
                 if (punishment.isActive() && viewer.hasPermission("stafftools.punish.remove")) {
                     // TODO: Open confirmation GUI or remove directly
                     viewer.closeInventory();
@@ -3,7 +3,10 @@ package com.inpuzah.stafftools.listeners;
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Punishment;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import com.inpuzah.stafftools.utils.Placeholders;
 import com.inpuzah.stafftools.utils.TimeUtil;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -11,15 +14,26 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
-import org.bukkit.block.BlockState;
 import org.bukkit.inventory.InventoryHolder;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class BuildBanListener implements Listener {
 
+    private static final Set<Material> REDSTONE = materials(
+            "LEVER", "REDSTONE_WIRE", "REDSTONE_TORCH", "REPEATER", "COMPARATOR",
+            "DAYLIGHT_DETECTOR", "HOPPER", "DISPENSER", "DROPPER", "PISTON", "STICKY_PISTON",
+            "STONE_BUTTON", "POLISHED_BLACKSTONE_BUTTON", "NOTE_BLOCK", "BELL");
+
     private final StaffToolsPlugin plugin;
+    // Blocks whose state is an InventoryHolder, looked up instead of getState(), which
+    // snapshots the whole tile entity on every click.
+    private final Set<Material> containers;
 
     public BuildBanListener(StaffToolsPlugin plugin) {
         this.plugin = plugin;
+        this.containers = containers();
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -75,29 +89,46 @@ public class BuildBanListener implements Listener {
         }
     }
 
-    private boolean isContainer(org.bukkit.block.Block block) {
-        if (block == null)
-            return false;
-        BlockState state = block.getState();
-        return state instanceof InventoryHolder;
+    private boolean isContainer(Block block) {
+        return block != null && isContainerMaterial(containers, block.getType());
+    }
+
+    static boolean isContainerMaterial(Set<Material> containers, Material material) {
+        return containers.contains(material);
     }
 
-    private boolean isRedstoneBlock(org.bukkit.Material material) {
-        return material == org.bukkit.Material.LEVER ||
-                material == org.bukkit.Material.REDSTONE_WIRE ||
-                material == org.bukkit.Material.REDSTONE_TORCH ||
-                material == org.bukkit.Material.REPEATER ||
-                material == org.bukkit.Material.COMPARATOR ||
-                material == org.bukkit.Material.DAYLIGHT_DETECTOR ||
-                material == org.bukkit.Material.HOPPER ||
-                material == org.bukkit.Material.DISPENSER ||
-                material == org.bukkit.Material.DROPPER ||
-                material == org.bukkit.Material.PISTON ||
-                material == org.bukkit.Material.STICKY_PISTON ||
-                material == org.bukkit.Material.STONE_BUTTON ||
-                material == org.bukkit.Material.POLISHED_BLACKSTONE_BUTTON ||
-                material == org.bukkit.Material.NOTE_BLOCK ||
-                material == org.bukkit.Material.BELL;
+    static boolean isRedstoneBlock(Material material) {
+        return REDSTONE.contains(material);
+    }
+
+    /**
+     * Every block whose default state is an InventoryHolder, so new container blocks are
+     * covered without a list to maintain. Needs a running server to create block data.
+     */
+    @SuppressWarnings("deprecation") // Material.isLegacy
+    private static Set<Material> containers() {
+        Set<Material> set = EnumSet.noneOf(Material.class);
+        for (Material material : Material.values()) {
+            if (!material.isBlock() || material.isLegacy())
+                continue;
+            try {
+                if (material.createBlockData().createBlockState() instanceof InventoryHolder)
+                    set.add(material);
+            } catch (RuntimeException ignored) {
+                // No block state for this material
+            }
+        }
+        return set;
+    }
+
+    private static Set<Material> materials(String... names) {
+        Set<Material> set = EnumSet.noneOf(Material.class);
+        for (String name : names) {
+            Material material = Material.getMaterial(name);
+            if (material != null)
+                set.add(material);
+        }
+        return set;
     }
 
     private void sendBuildBanMessage(Player player) {
@@ -105,8 +136,6 @@ public class BuildBanListener implements Listener {
         if (buildban == null)
             return;
 
-        java.util.List<String> messages = plugin.getConfig().getStringList("buildban.build-attempt-message");
-
         String expiresText;
         if (buildban.isPermanent()) {
             expiresText = "Never (Permanent)";
@@ -115,11 +144,8 @@ public class BuildBanListener implements Listener {
                     TimeUtil.formatDurationMillis(buildban.getRemainingTime()) + " remaining)";
         }
 
-        for (String line : messages) {
-            String formatted = line
-                    .replace("{reason}", buildban.getReason())
-                    .replace("{duration}", expiresText);
-            player.sendMessage(MessageUtil.colorize(formatted));
-        }
+        player.sendMessage(MessageUtil.linesTemplate("buildban.build-attempt-message").render(
+                Placeholders.REASON.of(buildban.getReason()),
+                Placeholders.DURATION.of(expiresText)));
     }
 }
\ No newline at end of file
@@ -1,10 +1,9 @@
 package com.inpuzah.stafftools.listeners;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
-import com.inpuzah.stafftools.database.models.Punishment;
-import com.inpuzah.stafftools.utils.MessageUtil;
-import com.inpuzah.stafftools.utils.TimeUtil;
+import com.inpuzah.stafftools.managers.ChatGateManager;
 import io.papermc.paper.event.player.AsyncChatEvent;
+import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -27,27 +26,24 @@ public class PlayerChatListener implements Listener {
 
         Player player = event.getPlayer();
 
+        // Players who are neither muted nor frozen have no gate
+        ChatGateManager.Gate gate = plugin.getChatGateManager().get(player.getUniqueId());
+        if (gate == null) {
+            return;
+        }
+
         // Check if player is muted
-        if (plugin.getPunishmentManager().isPlayerMuted(player.getUniqueId())) {
+        Component muteMessage = gate.muteMessage(System.currentTimeMillis());
+        if (muteMessage != null) {
             event.setCancelled(true);
-
-            Punishment mute = plugin.getPunishmentManager().getActiveMute(player.getUniqueId());
-            if (mute != null) {
-                String message = "&cYou are muted for: &f" + mute.getReason();
-                if (!mute.isPermanent()) {
-                    message += "\n&cTime remaining: &f" + TimeUtil.formatDurationMillis(mute.getRemainingTime());
-                } else {
-                    message += "\n&cThis mute is permanent.";
-                }
-                MessageUtil.sendMessage(player, message);
-            }
+            player.sendMessage(muteMessage);
             return;
         }
 
         // Check if player is frozen
-        if (plugin.getFreezeManager().isFrozen(player.getUniqueId())) {
+        if (gate.isFrozen()) {
             event.setCancelled(true);
-            MessageUtil.sendMessage(player, "&cYou cannot chat while frozen!");
+            player.sendMessage(plugin.getChatGateManager().getFrozenMessage());
         }
     }
 }
\ No newline at end of file
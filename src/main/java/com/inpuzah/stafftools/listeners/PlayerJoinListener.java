@@ -2,13 +2,17 @@ package com.inpuzah.stafftools.listeners;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.managers.StaffAudience;
 import com.inpuzah.stafftools.utils.MessageUtil;
-import org.bukkit.Bukkit;
+import com.inpuzah.stafftools.utils.Placeholders;
+import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import java.sql.SQLException;
 import java.util.UUID;
 
 public class PlayerJoinListener implements Listener {
@@ -20,26 +24,35 @@ public class PlayerJoinListener implements Listener {
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
-    @SuppressWarnings("deprecation")
-    public void onPlayerLogin(org.bukkit.event.player.PlayerLoginEvent event) {
-        Player player = event.getPlayer();
-        UUID uuid = player.getUniqueId();
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            return;
 
-        // Login decisions MUST be synchronous. Use the in-memory cache.
-        Punishment ban = plugin.getPunishmentManager().getActiveBan(uuid);
+        // Runs on the async login thread, so a DB fallback here never stalls the tick.
+        UUID uuid = event.getUniqueId();
+        Punishment ban;
+        try {
+            ban = plugin.getPunishmentManager().checkBanForLogin(uuid);
+        } catch (SQLException e) {
+            // Cache still warming and the DB is unreachable: don't let possible bans through.
+            plugin.getLogger().warning("Refusing login for " + event.getName() + " during startup: " + e.getMessage());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, MessageUtil.component(
+                    plugin.getConfig().getString("messages.login-not-ready",
+                            "&cThe server is still starting up. Please try again in a moment.")));
+            return;
+        }
         if (ban == null)
             return;
 
-        String banScreen = plugin.getPunishmentManager().buildBanScreenMessage(ban);
-        event.disallow(org.bukkit.event.player.PlayerLoginEvent.Result.KICK_BANNED,
-                MessageUtil.colorize(banScreen));
+        event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED, plugin.getPunishmentManager().buildBanScreen(ban));
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        plugin.getStaffAudience().handleJoin(player);
 
-        // Handle buildban restoration/application
+        // Re-apply a buildban if the demotion at issue time did not go through
         plugin.getBuildBanManager().handlePlayerJoin(player);
 
         // Check punishment history and notify staff
@@ -48,17 +61,11 @@ public class PlayerJoinListener implements Listener {
 
             plugin.getPunishmentManager().getPlayerHistory(player.getUniqueId()).thenAccept(history -> {
                 if (history.size() >= threshold) {
-                    String format = plugin.getConfig().getString("notifications.format.join")
-                            .replace("{player}", player.getName())
-                            .replace("{count}", String.valueOf(history.size()));
+                    Component message = MessageUtil.prefixedTemplate("notifications.format.join", "").render(
+                            Placeholders.PLAYER.of(player.getName()),
+                            Placeholders.COUNT.of(history.size()));
 
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        for (Player staff : Bukkit.getOnlinePlayers()) {
-                            if (staff != null && staff.hasPermission("stafftools.staff.notify")) {
-                                MessageUtil.sendMessage(staff, format);
-                            }
-                        }
-                    });
+                    plugin.getStaffAudience().audience(StaffAudience.Channel.STAFF).sendMessage(message);
                 }
             });
         }
@@ -2,10 +2,13 @@ package com.inpuzah.stafftools.listeners;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 public class PlayerQuitListener implements Listener {
-    public PlayerQuitListener(StaffToolsPlugin plugin) {}
-    @EventHandler public void onQuit(PlayerQuitEvent e) { /* optional cleanup via managers */ }
+    private final StaffToolsPlugin plugin;
+    public PlayerQuitListener(StaffToolsPlugin plugin) { this.plugin = plugin; }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) { plugin.getStaffAudience().handleQuit(e.getPlayer()); }
 }
@@ -40,6 +40,6 @@ public class VanishListener implements Listener {
     public void onJoin(PlayerJoinEvent event) {
         if (vanish == null) return;
         // Ensure visibility is correct for both directions when someone joins.
-        vanish.updateVisibility(event.getPlayer());
+        vanish.handleJoin(event.getPlayer());
     }
 }
@@ -0,0 +1,198 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import com.inpuzah.stafftools.utils.UuidBloomFilter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of active BAN, MUTE and BUILDBAN punishments.
+ *
+ * Lookups are a single concurrent map read per (type, uuid) and are safe from any
+ * thread (async chat, login threads, main thread). Temporary punishments are also
+ * kept in a queue ordered by expiresAt, so the expiry sweep only touches entries that
+ * are actually due. Entries removed early (unmute, unban) stay in the queue and are
+ * skipped when they surface.
+ *
+ * Banned UUIDs are additionally mirrored into a Bloom filter so the login path can
+ * rule out "not banned" without a map lookup, and build-banned UUIDs are published
+ * as an immutable copy-on-write set for the block event listeners.
+ */
+public final class ActivePunishmentIndex {
+
+    private final Map<PunishmentType, ConcurrentHashMap<UUID, Punishment>> byType = new EnumMap<>(
+            PunishmentType.class);
+    private final PriorityBlockingQueue<Punishment> expiryQueue = new PriorityBlockingQueue<>(64,
+            Comparator.comparingLong(Punishment::getExpiresAt));
+
+    private volatile UuidBloomFilter banFilter = new UuidBloomFilter(0);
+    private final AtomicInteger staleBanBits = new AtomicInteger();
+    private volatile Set<UUID> buildBanned = Set.of();
+    private final Object buildBannedLock = new Object();
+    private volatile Consumer<UUID> muteListener;
+
+    public ActivePunishmentIndex() {
+        // Populated once here and never structurally modified afterwards, so the
+        // EnumMap itself can be read without synchronization.
+        byType.put(PunishmentType.BAN, new ConcurrentHashMap<>());
+        byType.put(PunishmentType.MUTE, new ConcurrentHashMap<>());
+        byType.put(PunishmentType.BUILDBAN, new ConcurrentHashMap<>());
+    }
+
+    public static boolean isIndexed(PunishmentType type) {
+        return type == PunishmentType.BAN || type == PunishmentType.MUTE || type == PunishmentType.BUILDBAN;
+    }
+
+    /** Adds or replaces the active punishment of this type for the player. */
+    public void put(Punishment punishment) {
+        Map<UUID, Punishment> map = byType.get(punishment.getType());
+        if (map == null || punishment.getPlayerUuid() == null)
+            return;
+        map.put(punishment.getPlayerUuid(), punishment);
+        if (punishment.getType() == PunishmentType.BUILDBAN) {
+            republishBuildBanned();
+        }
+        if (punishment.getType() == PunishmentType.MUTE) {
+            notifyMuteChanged(punishment.getPlayerUuid());
+        }
+        if (punishment.getType() == PunishmentType.BAN) {
+            UuidBloomFilter filter = banFilter;
+            filter.add(punishment.getPlayerUuid());
+            if (map.size() > filter.getCapacity())
+                rebuildBanFilter();
+        }
+        if (!punishment.isPermanent() && punishment.getExpiresAt() != null) {
+            expiryQueue.add(punishment);
+        }
+    }
+
+    public Punishment get(UUID playerUuid, PunishmentType type) {
+        Map<UUID, Punishment> map = byType.get(type);
+        return (map == null || playerUuid == null) ? null : map.get(playerUuid);
+    }
+
+    public Punishment remove(UUID playerUuid, PunishmentType type) {
+        Map<UUID, Punishment> map = byType.get(type);
+        Punishment removed = (map == null || playerUuid == null) ? null : map.remove(playerUuid);
+        if (removed != null)
+            onRemoved(removed);
+        return removed;
+    }
+
+    /** Removes the entry only if it is still this exact punishment. */
+    public boolean remove(Punishment punishment) {
+        Map<UUID, Punishment> map = byType.get(punishment.getType());
+        boolean removed = map != null && map.remove(punishment.getPlayerUuid(), punishment);
+        if (removed)
+            onRemoved(punishment);
+        return removed;
+    }
+
+    /**
+     * Fast negative check for logins. {@code false} means the player has no active
+     * ban in this index; {@code true} means look it up with {@link #get}.
+     */
+    public boolean mightBeBanned(UUID playerUuid) {
+        return playerUuid != null && banFilter.mightContain(playerUuid);
+    }
+
+    /**
+     * Immutable snapshot of build-banned UUIDs. Reading it takes no lock; it is
+     * replaced wholesale whenever a buildban is added or removed.
+     */
+    public Set<UUID> buildBannedSnapshot() {
+        return buildBanned;
+    }
+
+    /** Called with the player's UUID after their active mute is added or removed. */
+    public void setMuteListener(Consumer<UUID> listener) {
+        this.muteListener = listener;
+    }
+
+    private void notifyMuteChanged(UUID playerUuid) {
+        Consumer<UUID> listener = muteListener;
+        if (listener != null)
+            listener.accept(playerUuid);
+    }
+
+    private void onRemoved(Punishment removed) {
+        PunishmentType type = removed.getType();
+        if (type == PunishmentType.BUILDBAN) {
+            republishBuildBanned();
+        } else if (type == PunishmentType.MUTE) {
+            notifyMuteChanged(removed.getPlayerUuid());
+        } else if (type == PunishmentType.BAN) {
+            // Unbanned UUIDs leave set bits behind; rebuild once they make up a good share.
+            int stale = staleBanBits.incrementAndGet();
+            if (stale > 64 && stale > size(PunishmentType.BAN))
+                rebuildBanFilter();
+        }
+    }
+
+    private void republishBuildBanned() {
+        // Copy under the lock so the last publisher always saw the latest map state.
+        synchronized (buildBannedLock) {
+            buildBanned = Set.copyOf(byType.get(PunishmentType.BUILDBAN).keySet());
+        }
+    }
+
+    private synchronized void rebuildBanFilter() {
+        Map<UUID, Punishment> bans = byType.get(PunishmentType.BAN);
+        UuidBloomFilter fresh = new UuidBloomFilter(bans.size() * 2);
+        // Publish first, then fill: any put() that still wrote to the old filter
+        // finished its map.put() before this point, so the iteration below sees it.
+        banFilter = fresh;
+        staleBanBits.set(0);
+        for (UUID uuid : bans.keySet()) {
+            fresh.add(uuid);
+        }
+    }
+
+    public Collection<Punishment> values(PunishmentType type) {
+        Map<UUID, Punishment> map = byType.get(type);
+        return map == null ? Collections.emptyList() : Collections.unmodifiableCollection(map.values());
+    }
+
+    public int size(PunishmentType type) {
+        Map<UUID, Punishment> map = byType.get(type);
+        return map == null ? 0 : map.size();
+    }
+
+    /**
+     * Removes every punishment whose expiresAt is before {@code now} and hands
+     * it to {@code onExpired}. Cost is proportional to the number of due entries.
+     *
+     * @return how many punishments expired
+     */
+    public int pollExpired(long now, Consumer<Punishment> onExpired) {
+        int expired = 0;
+        Punishment head;
+        while ((head = expiryQueue.peek()) != null && head.getExpiresAt() < now) {
+            Punishment polled = expiryQueue.poll();
+            if (polled == null)
+                break;
+            if (polled != head) {
+                // Another sweeper raced us; put it back and stop for this tick.
+                expiryQueue.add(polled);
+                break;
+            }
+            // Skip entries that were removed or replaced since they were queued.
+            if (remove(polled)) {
+                expired++;
+                onExpired.accept(polled);
+            }
+        }
+        return expired;
+    }
+}
@@ -4,7 +4,10 @@ import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Appeal;
 import com.inpuzah.stafftools.database.models.AppealStatus;
 import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -17,259 +20,280 @@ import java.util.concurrent.CompletableFuture;
 
 public class AppealManager {
 
+    private static final Component APPEALS_HINT = MessageUtil.component("&7Use &e/appeals &7to review appeals");
+
     private final StaffToolsPlugin plugin;
-    private final Map<UUID, Long> appealCooldowns;
+    // punishment.appeals.allow-appeal-types, parsed once per (re)load
+    private volatile Set<PunishmentType> appealableTypes = EnumSet.noneOf(PunishmentType.class);
 
     public AppealManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
-        this.appealCooldowns = new HashMap<>();
+        reload();
     }
 
-    public CompletableFuture<Appeal> createAppeal(Appeal appeal) {
-        return CompletableFuture.supplyAsync(() -> {
-            // Check if appeals are enabled
-            if (!plugin.getConfig().getBoolean("punishment.appeals.enabled", true)) {
-                return null;
+    public void reload() {
+        Set<PunishmentType> types = EnumSet.noneOf(PunishmentType.class);
+        for (String name : plugin.getConfig().getStringList("punishment.appeals.allow-appeal-types")) {
+            try {
+                types.add(PunishmentType.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown punishment type in allow-appeal-types: " + name);
             }
+        }
+        this.appealableTypes = types;
+    }
 
-            // Check cooldown
-            long cooldownHours = plugin.getConfig().getLong("punishment.appeals.cooldown-hours", 24);
-            Long lastAppeal = appealCooldowns.get(appeal.getPlayerUuid());
+    public CompletableFuture<Appeal> createAppeal(Appeal appeal) {
+        // Check if appeals are enabled
+        if (!plugin.getConfig().getBoolean("punishment.appeals.enabled", true)) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-            if (lastAppeal != null && System.currentTimeMillis() - lastAppeal < cooldownHours * 60 * 60 * 1000) {
-                return null; // On cooldown
-            }
+        // Check cooldown
+        return plugin.getCooldownStore().remaining(CooldownStore.Scope.APPEAL, appeal.getPlayerUuid())
+                .thenCompose(left -> left > 0
+                        ? CompletableFuture.completedFuture(null) // On cooldown
+                        : insertAppeal(appeal));
+    }
 
-            // Verify punishment exists and is appealable
-            Punishment punishment = plugin.getPunishmentManager().getPunishmentById(appeal.getPunishmentId()).join();
-            if (punishment == null || !punishment.isActive()) {
-                return null;
-            }
+    /**
+     * One writer task: the punishment comes from the active cache when it is there
+     * (otherwise it is read in the same task), and the insert itself is conditional
+     * on {@code idx_appeals_pending}, so there is no separate pending-appeal check.
+     */
+    private CompletableFuture<Appeal> insertAppeal(Appeal appeal) {
+        Punishment cached = plugin.getPunishmentManager().findActive(appeal.getPlayerUuid(), appeal.getPunishmentId());
+        if (cached != null && !appealableTypes.contains(cached.getType())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean mysql = plugin.getDatabaseManager().isMySQL();
 
-            // Check if punishment type is appealable
-            List<String> appealableTypes = plugin.getConfig().getStringList("punishment.appeals.allow-appeal-types");
-            if (!appealableTypes.contains(punishment.getType().name())) {
+        return plugin.getDatabaseManager().write(conn -> {
+            // Verify punishment exists, is the appellant's own, active and appealable
+            Punishment punishment = cached != null ? cached : loadAppealable(conn, appeal);
+            if (punishment == null) {
                 return null;
             }
 
-            // Check if already appealed
-            if (hasActiveAppeal(appeal.getPunishmentId())) {
+            if (!insertPending(conn, mysql, appeal)) {
+                return null; // already a pending appeal for this punishment
+            }
+            return punishment;
+        }).thenApply(punishment -> {
+            if (punishment == null) {
                 return null;
             }
 
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = """
-                    INSERT INTO punishment_appeals (punishment_id, player_uuid, player_name, 
-                    appeal_text, timestamp, status)
-                    VALUES (?, ?, ?, ?, ?, ?)
-                """;
-
-                try (PreparedStatement stmt = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS)) {
-                    stmt.setInt(1, appeal.getPunishmentId());
-                    stmt.setString(2, appeal.getPlayerUuid().toString());
-                    stmt.setString(3, appeal.getPlayerName());
-                    stmt.setString(4, appeal.getAppealText());
-                    stmt.setLong(5, appeal.getTimestamp());
-                    stmt.setString(6, appeal.getStatus().name());
-
-                    stmt.executeUpdate();
-
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            appeal.setId(rs.getInt(1));
-                        }
-                    }
-                }
+            // Set cooldown
+            plugin.getCooldownStore().start(CooldownStore.Scope.APPEAL, appeal.getPlayerUuid(),
+                    plugin.getConfig().getLong("punishment.appeals.cooldown-hours", 24) * 60 * 60 * 1000L);
 
-                // Set cooldown
-                appealCooldowns.put(appeal.getPlayerUuid(), System.currentTimeMillis());
+            // Notify staff
+            if (plugin.getConfig().getBoolean("punishment.appeals.auto-notify-staff", true)) {
+                notifyStaff(appeal, punishment);
+            }
 
-                // Notify staff
-                if (plugin.getConfig().getBoolean("punishment.appeals.auto-notify-staff", true)) {
-                    notifyStaff(appeal, punishment);
-                }
+            // Send to Discord
+            plugin.getDiscordManager().sendAppealNotification(appeal, punishment);
+
+            // Log to audit
+            plugin.getAuditManager().logAction(
+                    appeal.getPlayerUuid(),
+                    appeal.getPlayerName(),
+                    "APPEAL_CREATED",
+                    null,
+                    null,
+                    "Appeal for punishment #" + appeal.getPunishmentId()
+            );
 
-                // Send to Discord
-                plugin.getDiscordManager().sendAppealNotification(appeal, punishment);
-
-                // Log to audit
-                plugin.getAuditManager().logAction(
-                        appeal.getPlayerUuid(),
-                        appeal.getPlayerName(),
-                        "APPEAL_CREATED",
-                        null,
-                        null,
-                        "Appeal for punishment #" + appeal.getPunishmentId()
-                );
-
-                return appeal;
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to create appeal: " + e.getMessage());
-                return null;
-            }
+            return appeal;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to create appeal: " + DatabaseManager.rootMessage(e));
+            return null;
         });
     }
 
-    private boolean hasActiveAppeal(int punishmentId) {
-        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-            String query = "SELECT COUNT(*) FROM punishment_appeals WHERE punishment_id = ? AND status = 'PENDING'";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, punishmentId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    return rs.next() && rs.getInt(1) > 0;
+    /**
+     * The conditional insert; false when {@code idx_appeals_pending} already has a
+     * pending appeal for the punishment.
+     */
+    static boolean insertPending(Connection conn, boolean mysql, Appeal appeal) throws SQLException {
+        // Only a conflict on the pending index is a no-op; any other error still fails the insert
+        String insert = "INSERT INTO punishment_appeals"
+                + " (punishment_id, player_uuid, player_name, appeal_text, timestamp, status)"
+                + " VALUES (?, ?, ?, ?, ?, ?)"
+                + (mysql ? " ON DUPLICATE KEY UPDATE id = id"
+                        : " ON CONFLICT(punishment_id) WHERE status = 'PENDING' DO NOTHING");
+        try (PreparedStatement stmt = conn.prepareStatement(insert, PreparedStatement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, appeal.getPunishmentId());
+            stmt.setString(2, appeal.getPlayerUuid().toString());
+            stmt.setString(3, appeal.getPlayerName());
+            stmt.setString(4, appeal.getAppealText());
+            stmt.setLong(5, appeal.getTimestamp());
+            stmt.setString(6, appeal.getStatus().name());
+
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+
+            // MySQL may count the untouched duplicate as a found row, but it generates no key for it
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (!rs.next() || rs.getInt(1) == 0) {
+                    return false;
                 }
+                appeal.setId(rs.getInt(1));
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to check active appeal: " + e.getMessage());
         }
-        return false;
+        return true;
     }
 
-    private void notifyStaff(Appeal appeal, Punishment punishment) {
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            String message = MessageUtil.colorize(
-                    "&7[&b&lAPPEAL&7] &e" + appeal.getPlayerName() +
-                            " &7appealed their &c" + punishment.getType().name() +
-                            " &7for: &f" + punishment.getReason()
-            );
-
-            for (Player staff : Bukkit.getOnlinePlayers()) {
-                if (staff != null && staff.hasPermission("stafftools.appeal.notify")) {
-                    staff.sendMessage(message);
-                    staff.sendMessage(MessageUtil.colorize("&7Use &e/appeals &7to review appeals"));
+    /** Cache miss: the punishment row, if it is the appellant's, still active and appealable. */
+    private Punishment loadAppealable(Connection conn, Appeal appeal) throws SQLException {
+        RowCodec codec = plugin.getDatabaseManager().getCodec();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM punishments WHERE id = ?")) {
+            stmt.setInt(1, appeal.getPunishmentId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
                 }
+                Punishment p = codec.punishment(rs);
+                boolean appealable = p.isActive() && !p.isExpired() && appealableTypes.contains(p.getType())
+                        && appeal.getPlayerUuid().equals(p.getPlayerUuid());
+                return appealable ? p : null;
             }
-        });
+        }
     }
 
-    public CompletableFuture<List<Appeal>> getAppeals(AppealStatus status) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Appeal> appeals = new ArrayList<>();
+    private void notifyStaff(Appeal appeal, Punishment punishment) {
+        Audience staff = plugin.getStaffAudience().audience(StaffAudience.Channel.APPEALS);
+        staff.sendMessage(MessageUtil.component(
+                "&7[&b&lAPPEAL&7] &e" + appeal.getPlayerName() +
+                        " &7appealed their &c" + punishment.getType().name() +
+                        " &7for: &f" + punishment.getReason()
+        ));
+        staff.sendMessage(APPEALS_HINT);
+    }
 
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = status == null ?
-                        "SELECT * FROM punishment_appeals ORDER BY timestamp DESC LIMIT 100" :
-                        "SELECT * FROM punishment_appeals WHERE status = ? ORDER BY timestamp DESC LIMIT 100";
+    public CompletableFuture<List<Appeal>> getAppeals(AppealStatus status) {
+        String query = status == null ?
+                "SELECT * FROM punishment_appeals ORDER BY timestamp DESC LIMIT 100" :
+                "SELECT * FROM punishment_appeals WHERE status = ? ORDER BY timestamp DESC LIMIT 100";
 
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    if (status != null) {
-                        stmt.setString(1, status.name());
-                    }
+        return plugin.getDatabaseManager().read(conn -> {
+            List<Appeal> appeals = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                if (status != null) {
+                    stmt.setString(1, status.name());
+                }
 
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            appeals.add(parseAppeal(rs));
-                        }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        appeals.add(parseAppeal(rs));
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to get appeals: " + e.getMessage());
             }
-
             return appeals;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to get appeals: " + DatabaseManager.rootMessage(e));
+            return new ArrayList<>();
         });
     }
 
     public CompletableFuture<Boolean> reviewAppeal(int appealId, UUID staffUuid, String staffName,
                                                    AppealStatus decision, String reviewNote) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = """
-                    UPDATE punishment_appeals SET status = ?, reviewed_by = ?, reviewed_by_name = ?,
-                    reviewed_at = ?, review_note = ? WHERE id = ?
-                """;
-
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, decision.name());
-                    stmt.setString(2, staffUuid.toString());
-                    stmt.setString(3, staffName);
-                    stmt.setLong(4, System.currentTimeMillis());
-                    stmt.setString(5, reviewNote);
-                    stmt.setInt(6, appealId);
-
-                    int affected = stmt.executeUpdate();
-
-                    if (affected > 0) {
-                        // If approved, remove the punishment
-                        if (decision == AppealStatus.APPROVED) {
-                            Appeal appeal = getAppeal(appealId).join();
-                            if (appeal != null) {
-                                plugin.getPunishmentManager().removePunishment(
-                                        appeal.getPunishmentId(),
-                                        staffUuid,
-                                        staffName,
-                                        "Appeal approved: " + reviewNote
-                                );
-
-                                // Notify player if online
-                                Player player = Bukkit.getPlayer(appeal.getPlayerUuid());
-                                if (player != null && player.isOnline()) {
-                                    Bukkit.getScheduler().runTask(plugin, () -> {
-                                        MessageUtil.sendMessage(player, "&a&lYour appeal has been approved!");
-                                        MessageUtil.sendMessage(player, "&7Review note: &f" + reviewNote);
-                                    });
-                                }
-                            }
-                        }
-
-                        // Log to audit
-                        plugin.getAuditManager().logAction(
-                                staffUuid,
-                                staffName,
-                                "APPEAL_REVIEWED",
-                                null,
-                                null,
-                                String.format("Appeal #%d - Decision: %s, Note: %s", appealId, decision, reviewNote)
-                        );
-
-                        return true;
+        return plugin.getDatabaseManager().write(conn -> {
+            String query = """
+                UPDATE punishment_appeals SET status = ?, reviewed_by = ?, reviewed_by_name = ?,
+                reviewed_at = ?, review_note = ? WHERE id = ?
+            """;
+
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, decision.name());
+                stmt.setString(2, staffUuid.toString());
+                stmt.setString(3, staffName);
+                stmt.setLong(4, System.currentTimeMillis());
+                stmt.setString(5, reviewNote);
+                stmt.setInt(6, appealId);
+
+                return stmt.executeUpdate() > 0;
+            }
+        }).thenCompose(updated -> {
+            if (!updated) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            // Log to audit
+            plugin.getAuditManager().logAction(
+                    staffUuid,
+                    staffName,
+                    "APPEAL_REVIEWED",
+                    null,
+                    null,
+                    String.format("Appeal #%d - Decision: %s, Note: %s", appealId, decision, reviewNote)
+            );
+
+            if (decision != AppealStatus.APPROVED) {
+                return CompletableFuture.completedFuture(true);
+            }
+
+            // If approved, remove the punishment
+            return getAppeal(appealId).thenApply(appeal -> {
+                if (appeal != null) {
+                    plugin.getPunishmentManager().removePunishment(
+                            appeal.getPunishmentId(),
+                            staffUuid,
+                            staffName,
+                            "Appeal approved: " + reviewNote
+                    );
+
+                    // Notify player if online
+                    Player player = Bukkit.getPlayer(appeal.getPlayerUuid());
+                    if (player != null && player.isOnline()) {
+                        Bukkit.getScheduler().runTask(plugin, () -> {
+                            MessageUtil.sendMessage(player, "&a&lYour appeal has been approved!");
+                            MessageUtil.sendMessage(player, "&7Review note: &f" + reviewNote);
+                        });
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to review appeal: " + e.getMessage());
-            }
+                return true;
+            });
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to review appeal: " + DatabaseManager.rootMessage(e));
             return false;
         });
     }
 
     public CompletableFuture<Appeal> getAppeal(int id) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "SELECT * FROM punishment_appeals WHERE id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setInt(1, id);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            return parseAppeal(rs);
-                        }
-                    }
+        return plugin.getDatabaseManager().read(conn -> {
+            String query = "SELECT * FROM punishment_appeals WHERE id = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? parseAppeal(rs) : null;
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to get appeal: " + e.getMessage());
             }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to get appeal: " + DatabaseManager.rootMessage(e));
             return null;
         });
     }
 
     public CompletableFuture<List<Appeal>> getPlayerAppeals(UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return plugin.getDatabaseManager().read(conn -> {
             List<Appeal> appeals = new ArrayList<>();
-
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "SELECT * FROM punishment_appeals WHERE player_uuid = ? ORDER BY timestamp DESC";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, playerUuid.toString());
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            appeals.add(parseAppeal(rs));
-                        }
+            String query = "SELECT * FROM punishment_appeals WHERE player_uuid = ? ORDER BY timestamp DESC";
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, playerUuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        appeals.add(parseAppeal(rs));
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to get player appeals: " + e.getMessage());
             }
-
             return appeals;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to get player appeals: " + DatabaseManager.rootMessage(e));
+            return new ArrayList<>();
         });
     }
 
@@ -2,64 +2,229 @@ package com.inpuzah.stafftools.managers;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Write-behind audit log.
+ *
+ * Actions are filtered against a set compiled from config on reload, queued in a
+ * bounded in-memory buffer, and flushed to {@code audit_log} as JDBC batches through
+ * the database writer, either when a batch fills up or on a short timer.
+ */
 public class AuditManager {
 
+    private static final String INSERT_SQL = """
+                INSERT INTO audit_log (staff_uuid, staff_name, action, target_uuid,
+                target_name, details, timestamp, server_name)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // staff_uuid is NOT NULL; one bad row must not fail the whole batch
+    private static final UUID CONSOLE_UUID = UUID.fromString("00000000-0000-0000-0000-000000000000");
+
     private final StaffToolsPlugin plugin;
     private final ExecutorService db;
+    private final String serverName;
+
+    // Compiled from config in reload()
+    private volatile boolean enabled;
+    private volatile Set<String> loggedActions = Set.of();
+    private volatile int batchSize;
+
+    private volatile BlockingQueue<AuditEntry> queue;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+    private BukkitTask flushTask;
+    // Last batch handed to the writer; shutdown waits on it
+    private volatile CompletableFuture<?> lastWrite = CompletableFuture.completedFuture(null);
+
+    // Backpressure metrics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong peakQueueDepth = new AtomicLong();
+    private volatile long lastFlushMillis;
 
     public AuditManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
         this.db = plugin.getDatabaseManager().getExecutor();
+        this.serverName = Bukkit.getServer().getName();
+        reload();
+    }
+
+    /** Recompiles the action filter and restarts the flush timer. */
+    public void reload() {
+        this.enabled = plugin.getConfig().getBoolean("audit.enabled", true);
+        this.loggedActions = Set.copyOf(plugin.getConfig().getStringList("audit.log-actions"));
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("audit.batch-size", 50));
+
+        int capacity = Math.max(batchSize, plugin.getConfig().getInt("audit.queue-capacity", 2000));
+        BlockingQueue<AuditEntry> old = this.queue;
+        if (old == null) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        } else if (old.remainingCapacity() + old.size() != capacity) {
+            // Swap first so new entries land in the resized queue, then write out the old one.
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            db.execute(() -> drain(old));
+        }
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        long intervalMs = Math.max(50L, plugin.getConfig().getLong("audit.flush-interval-ms", 1000L));
+        long ticks = Math.max(1L, intervalMs / 50L);
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::scheduleFlush, ticks, ticks);
     }
 
     public CompletableFuture<Void> logAction(UUID staffUuid, String staffName, String action,
             UUID targetUuid, String targetName, String details) {
-        return CompletableFuture.runAsync(() -> {
-            if (!plugin.getConfig().getBoolean("audit.enabled", true)) {
-                plugin.getLogger().info("[Audit] Skipped (disabled): " + action);
-                return;
+        if (!enabled || !loggedActions.contains(action)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        AuditEntry entry = new AuditEntry(staffUuid, staffName, action, targetUuid, targetName, details,
+                System.currentTimeMillis());
+
+        BlockingQueue<AuditEntry> q = queue;
+        if (!q.offer(entry)) {
+            // Queue is full: the writer is behind. Drop rather than block the caller
+            // (often the main thread) and make sure a flush is on its way.
+            long d = dropped.incrementAndGet();
+            if (d == 1 || d % 100 == 0) {
+                plugin.getLogger().warning("[Audit] Queue full (" + q.size() + "), dropped " + d
+                        + " entries so far. Latest: " + action + " by " + staffName);
             }
+            scheduleFlush();
+            return CompletableFuture.completedFuture(null);
+        }
 
-            List<String> logActions = plugin.getConfig().getStringList("audit.log-actions");
-            if (!logActions.contains(action)) {
-                plugin.getLogger().info("[Audit] Skipped (not in log-actions): " + action);
-                return;
+        enqueued.incrementAndGet();
+        int depth = q.size();
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+        if (depth >= batchSize) {
+            scheduleFlush();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void scheduleFlush() {
+        if (queue.isEmpty() || !flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            db.execute(() -> {
+                flushScheduled.set(false);
+                flushNow();
+            });
+        } catch (RuntimeException e) {
+            // Executor rejected (shutting down); shutdown() does the final flush.
+            flushScheduled.set(false);
+        }
+    }
+
+    /**
+     * Drains the queue into the database, one JDBC batch per {@code batchSize} entries.
+     * Safe to call from any thread; concurrent callers are serialized.
+     */
+    private void flushNow() {
+        drain(queue);
+    }
+
+    private void drain(BlockingQueue<AuditEntry> q) {
+        if (q == null) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<AuditEntry> batch = new ArrayList<>(batchSize);
+            while (q.drainTo(batch, batchSize) > 0) {
+                lastWrite = writeBatch(List.copyOf(batch));
+                batch.clear();
             }
+            lastFlushMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * One JDBC batch in one transaction. In SQLite single-writer mode the writer
+     * commits it together with any other queued writes and rolls a failing batch
+     * back on its own; otherwise the batch commits or rolls back by itself.
+     */
+    private CompletableFuture<int[]> writeBatch(List<AuditEntry> batch) {
+        RowCodec codec = plugin.getDatabaseManager().getCodec();
+        return plugin.getDatabaseManager().write(conn -> insertBatch(conn, codec, batch, serverName))
+                .whenComplete((counts, e) -> {
+                    if (e != null) {
+                        failedBatches.incrementAndGet();
+                        plugin.getLogger().severe("[Audit] Failed to write " + batch.size() + " audit entries: "
+                                + DatabaseManager.rootMessage(e));
+                    } else {
+                        written.addAndGet(batch.size());
+                        batches.incrementAndGet();
+                    }
+                });
+    }
 
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = """
-                            INSERT INTO audit_log (staff_uuid, staff_name, action, target_uuid,
-                            target_name, details, timestamp, server_name)
-                            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                        """;
-
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, staffUuid.toString());
-                    stmt.setString(2, staffName);
-                    stmt.setString(3, action);
-                    stmt.setString(4, targetUuid != null ? targetUuid.toString() : null);
-                    stmt.setString(5, targetName);
-                    stmt.setString(6, details);
-                    stmt.setLong(7, System.currentTimeMillis());
-                    stmt.setString(8, Bukkit.getServer().getName());
-
-                    stmt.executeUpdate();
-                    plugin.getLogger().info("[Audit] Logged: " + action + " by " + staffName + " - " + details);
+    /** The batch insert itself; commits as one transaction on an auto-commit connection too. */
+    static int[] insertBatch(Connection conn, RowCodec codec, List<AuditEntry> batch, String serverName)
+            throws SQLException {
+        return DatabaseManager.inTransaction(conn, c -> {
+            try (PreparedStatement stmt = c.prepareStatement(INSERT_SQL)) {
+                for (AuditEntry e : batch) {
+                    codec.setUuid(stmt, 1, e.staffUuid != null ? e.staffUuid : CONSOLE_UUID);
+                    stmt.setString(2, e.staffName != null ? e.staffName : "CONSOLE");
+                    stmt.setString(3, e.action);
+                    codec.setUuid(stmt, 4, e.targetUuid);
+                    stmt.setString(5, e.targetName);
+                    stmt.setString(6, e.details);
+                    stmt.setLong(7, e.timestamp);
+                    stmt.setString(8, serverName);
+                    stmt.addBatch();
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("[Audit] Failed to log action: " + e.getMessage());
-                e.printStackTrace();
+                return stmt.executeBatch();
             }
-        }, db);
+        });
+    }
+
+    /**
+     * Stops the flush timer and writes everything still queued. Call from
+     * onDisable before the database is closed.
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flushNow();
+        try {
+            // The writer keeps order, so the last batch committing means all of them did.
+            lastWrite.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Already logged by writeBatch, or the database is stuck; don't hold up shutdown.
+        }
+        plugin.getLogger().info("[Audit] Flushed audit queue on shutdown (" + written.get() + " written, "
+                + dropped.get() + " dropped this session).");
     }
 
     public void cleanupOldLogs() {
@@ -68,22 +233,77 @@ public class AuditManager {
             return; // Keep forever
         }
 
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                long cutoffTime = System.currentTimeMillis() - (retentionDays * 24L * 60 * 60 * 1000);
+        long cutoffTime = System.currentTimeMillis() - (retentionDays * 24L * 60 * 60 * 1000);
+        plugin.getDatabaseManager().write(conn -> {
+            String query = "DELETE FROM audit_log WHERE timestamp < ?";
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setLong(1, cutoffTime);
+                return stmt.executeUpdate();
+            }
+        }).whenComplete((deleted, e) -> {
+            if (e != null) {
+                plugin.getLogger().severe("[Audit] Failed to cleanup old audit logs: " + DatabaseManager.rootMessage(e));
+            } else if (deleted > 0) {
+                plugin.getLogger().info("[Audit] Cleaned up " + deleted + " old audit log entries");
+            }
+        });
+    }
 
-                String query = "DELETE FROM audit_log WHERE timestamp < ?";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setLong(1, cutoffTime);
-                    int deleted = stmt.executeUpdate();
+    // ----- Metrics -----
+    public int getQueueDepth() {
+        return queue.size();
+    }
 
-                    if (deleted > 0) {
-                        plugin.getLogger().info("[Audit] Cleaned up " + deleted + " old audit log entries");
-                    }
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("[Audit] Failed to cleanup old audit logs: " + e.getMessage());
-            }
-        }, db);
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    public long getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    static final class AuditEntry {
+        final UUID staffUuid;
+        final String staffName;
+        final String action;
+        final UUID targetUuid;
+        final String targetName;
+        final String details;
+        final long timestamp;
+
+        AuditEntry(UUID staffUuid, String staffName, String action, UUID targetUuid, String targetName,
+                String details, long timestamp) {
+            this.staffUuid = staffUuid;
+            this.staffName = staffName;
+            this.action = action;
+            this.targetUuid = targetUuid;
+            this.targetName = targetName;
+            this.details = details;
+            this.timestamp = timestamp;
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,64 +5,81 @@ import com.inpuzah.stafftools.database.models.Punishment;
 import com.inpuzah.stafftools.database.models.PunishmentType;
 import com.inpuzah.stafftools.utils.MessageUtil;
 import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
 import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeEqualityPredicate;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Build bans: the shared active index decides who is build-banned, and this class
+ * swaps their LuckPerms data to match.
+ *
+ * Every LuckPerms change goes through {@code loadUser}/{@code modifyUser}, which work
+ * for offline users too, so a build ban is applied or lifted as soon as it is issued
+ * or ends instead of waiting for the player's next login, and none of it touches the
+ * main thread. Restores are queued and drained together a tick later, so build bans
+ * ending in the same tick share one lookup of their stored original groups and one
+ * delete. A player's changes run one after another, in the order they were made,
+ * so a demotion still in flight cannot land after the restore that follows it.
+ */
 public class BuildBanManager {
 
+    private static final long RESTORE_DELAY_TICKS = 1L;
+    // Keeps IN (...) lists well under SQLite's bound-parameter limit
+    private static final int LOOKUP_CHUNK = 500;
+
     private final StaffToolsPlugin plugin;
-    private final Map<UUID, Punishment> activeBuildBans;
+    private final ActivePunishmentIndex activeIndex; // shared with PunishmentManager
     private final Map<UUID, String> originalGroups; // Store original group for restoration
+    private final Set<UUID> pendingRestores = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean restoreScheduled = new AtomicBoolean(false);
+    // Last LuckPerms change started per player; the next one waits for it
+    private final Map<UUID, CompletableFuture<Void>> changeTails = new ConcurrentHashMap<>();
 
     public BuildBanManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
-        this.activeBuildBans = new HashMap<>();
-        this.originalGroups = new HashMap<>();
+        this.activeIndex = plugin.getPunishmentManager().getActiveIndex();
+        this.originalGroups = new ConcurrentHashMap<>();
 
         loadActiveBuildBans();
     }
 
     private void loadActiveBuildBans() {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "SELECT * FROM punishments WHERE type = 'BUILDBAN' AND active = 1";
-                try (PreparedStatement stmt = conn.prepareStatement(query);
-                        ResultSet rs = stmt.executeQuery()) {
-
-                    while (rs.next()) {
-                        Punishment punishment = parsePunishment(rs);
-                        if (!punishment.isExpired()) {
-                            activeBuildBans.put(punishment.getPlayerUuid(), punishment);
-
-                            // Apply buildban to online players
-                            Player player = Bukkit.getPlayer(punishment.getPlayerUuid());
-                            if (player != null && player.isOnline()) {
-                                Bukkit.getScheduler().runTask(plugin, () -> applyBuildBan(player));
-                            }
-                        }
+        // PunishmentManager warms the shared index (BUILDBAN included) on the DB executor;
+        // once it is ready, apply buildbans to anyone already online (e.g. after /reload)
+        // and lift any that ended while no restore could run.
+        plugin.getPunishmentManager().getReadyFuture().thenRun(() -> {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    if (isBuildBanned(player.getUniqueId())) {
+                        applyBuildBan(player.getUniqueId(), player.getName());
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to load active buildbans: " + e.getMessage());
-            }
+            });
+            // Also picks up rows older versions flagged needs_restoration for the next login
+            storedPlayers().thenAccept(stored -> stored.forEach(this::queueRestore));
         });
     }
 
     public void issueBuildBan(Punishment punishment) {
-        activeBuildBans.put(punishment.getPlayerUuid(), punishment);
+        if (activeIndex.get(punishment.getPlayerUuid(), PunishmentType.BUILDBAN) != punishment) {
+            activeIndex.put(punishment);
+        }
+
+        // Offline players are demoted right away too
+        applyBuildBan(punishment.getPlayerUuid(), punishment.getPlayerName());
 
         Player player = Bukkit.getPlayer(punishment.getPlayerUuid());
         if (player != null && player.isOnline()) {
-            applyBuildBan(player);
-
             String message = MessageUtil.colorize(
                     "&c&lYou have been BuildBanned!\n" +
                             "&7Reason: &f" + punishment.getReason() + "\n" +
@@ -75,249 +92,307 @@ public class BuildBanManager {
         }
     }
 
-    private void applyBuildBan(Player player) {
-        UUID uuid = player.getUniqueId();
-
-        // Get LuckPerms user
-        User user = plugin.getLuckPerms().getUserManager().getUser(uuid);
-        if (user == null) {
-            plugin.getLogger().warning("Could not find LuckPerms user for " + player.getName());
-            return;
-        }
-
+    /**
+     * Demotes the player (or denies the configured permissions). Idempotent: a player
+     * already in the demoted group keeps the original group stored when they entered it.
+     */
+    private void applyBuildBan(UUID uuid, String name) {
+        UserManager users = plugin.getLuckPerms().getUserManager();
+        CompletableFuture<Boolean> applied;
         if (plugin.getConfig().getBoolean("buildban.restore-original-group", true)) {
-            // Store original primary group
-            String originalGroup = user.getPrimaryGroup();
-            originalGroups.put(uuid, originalGroup);
-
-            // Save to database for persistence
-            saveOriginalGroup(uuid, originalGroup);
-
-            // Set to buildbanned group
-            String buildBannedGroup = plugin.getConfig().getString("buildban.demoted-group", "buildbanned");
-            var data = user.data();
-            if (data != null) {
-                data.clear(node -> node.getKey().startsWith("group."));
-                data.add(Node.builder("group." + buildBannedGroup).build());
-            }
-
-            // Save changes
-            plugin.getLuckPerms().getUserManager().saveUser(user);
+            String demotedGroup = plugin.getConfig().getString("buildban.demoted-group", "buildbanned");
+            applied = inOrder(uuid, () -> !isBuildBanned(uuid) ? CompletableFuture.completedFuture(false)
+                    : users.loadUser(uuid).thenCompose(user -> {
+                        String originalGroup = user.getPrimaryGroup();
+                        if (demotedGroup.equalsIgnoreCase(originalGroup))
+                            return CompletableFuture.completedFuture(false);
+                        originalGroups.put(uuid, originalGroup);
+                        // Stored before the swap, so the original group cannot be lost in between
+                        return saveOriginalGroup(uuid, originalGroup).thenCompose(v -> {
+                            if (!isBuildBanned(uuid)) {
+                                // Lifted while saving; the restore may have missed the group
+                                originalGroups.remove(uuid);
+                                clearStoredOriginalGroups(List.of(uuid));
+                                return CompletableFuture.completedFuture(false);
+                            }
+                            return users.modifyUser(uuid, u -> {
+                                u.data().clear(node -> node.getKey().startsWith("group."));
+                                u.data().add(Node.builder("group." + demotedGroup).build());
+                            }).thenApply(changed -> true);
+                        });
+                    }));
         } else {
             // Remove specific permissions
             List<String> permissions = plugin.getConfig().getStringList("buildban.remove-permissions");
-            var data = user.data();
-            if (data != null) {
-                for (String perm : permissions) {
-                    @SuppressWarnings("nullness")
-                    var ignored = data.add(Node.builder(perm).value(false).build());
-                }
-            }
-
-            plugin.getLuckPerms().getUserManager().saveUser(user);
+            applied = inOrder(uuid, () -> !isBuildBanned(uuid) ? CompletableFuture.completedFuture(false)
+                    : users.modifyUser(uuid, user -> {
+                        for (String perm : permissions) {
+                            user.data().add(Node.builder(perm).value(false).build());
+                        }
+                    }).thenApply(changed -> true));
         }
-
-        plugin.getLogger().info("Applied buildban to " + player.getName());
+        applied.thenAccept(changed -> {
+            if (changed)
+                plugin.getLogger().info("Applied buildban to " + name);
+        })
+                .exceptionally(e -> {
+                    plugin.getLogger().severe("Failed to apply buildban to " + name + ": "
+                            + DatabaseManager.rootMessage(e));
+                    return null;
+                });
     }
 
     public void removeBuildBan(UUID playerUuid) {
-        Punishment buildban = activeBuildBans.remove(playerUuid);
+        Punishment buildban = activeIndex.remove(playerUuid, PunishmentType.BUILDBAN);
         if (buildban == null) {
             return;
         }
+        releaseBuildBan(playerUuid);
+    }
 
+    /** Called by the expiry task once the buildban has already left the index. */
+    void onBuildBanExpired(Punishment buildban) {
+        releaseBuildBan(buildban.getPlayerUuid());
+    }
+
+    private void releaseBuildBan(UUID playerUuid) {
+        // Offline players are restored right away too
+        queueRestore(playerUuid);
         Player player = Bukkit.getPlayer(playerUuid);
         if (player != null && player.isOnline()) {
-            restoreBuildPermissions(player);
             MessageUtil.sendMessage(player, "&aYour buildban has been removed! You can now build again.");
-        } else {
-            // Player offline - will be restored on next login
-            // Mark for restoration in database
-            markForRestoration(playerUuid);
         }
     }
 
-    private void restoreBuildPermissions(Player player) {
-        UUID uuid = player.getUniqueId();
-
-        User user = plugin.getLuckPerms().getUserManager().getUser(uuid);
-        if (user == null) {
-            plugin.getLogger().warning("Could not find LuckPerms user for " + player.getName());
-            return;
+    /**
+     * Another server lifted the buildban and has already restored the player. Restoring
+     * again here is harmless and makes sure a player connected to this server is not
+     * left with stale LuckPerms data until the next sync.
+     */
+    void onRemoteRelease(UUID playerUuid) {
+        Player player = Bukkit.getPlayer(playerUuid);
+        if (player != null && player.isOnline()) {
+            queueRestore(playerUuid);
+            MessageUtil.sendMessage(player, "&aYour buildban has been removed! You can now build again.");
         }
+    }
 
-        if (plugin.getConfig().getBoolean("buildban.restore-original-group", true)) {
-            // Restore original group
-            String originalGroup = originalGroups.getOrDefault(uuid, getStoredOriginalGroup(uuid));
+    private void queueRestore(UUID playerUuid) {
+        pendingRestores.add(playerUuid);
+        if (restoreScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::drainRestores, RESTORE_DELAY_TICKS);
+        }
+    }
 
-            if (originalGroup != null) {
-                var data = user.data();
-                if (data != null) {
-                    data.clear(node -> node.getKey().startsWith("group."));
-                    data.add(Node.builder("group." + originalGroup).build());
-                }
+    private void drainRestores() {
+        restoreScheduled.set(false);
+        List<UUID> batch = new ArrayList<>();
+        for (Iterator<UUID> it = pendingRestores.iterator(); it.hasNext();) {
+            UUID uuid = it.next();
+            it.remove();
+            // Skip anyone build-banned again since the restore was queued
+            if (!isBuildBanned(uuid))
+                batch.add(uuid);
+        }
+        if (batch.isEmpty())
+            return;
 
-                plugin.getLuckPerms().getUserManager().saveUser(user);
-                originalGroups.remove(uuid);
-                clearStoredOriginalGroup(uuid);
-            }
-        } else {
+        UserManager users = plugin.getLuckPerms().getUserManager();
+        if (!plugin.getConfig().getBoolean("buildban.restore-original-group", true)) {
             // Re-add permissions
             List<String> permissions = plugin.getConfig().getStringList("buildban.remove-permissions");
-            var data = user.data();
-            if (data != null) {
-                for (String perm : permissions) {
-                    @SuppressWarnings("nullness")
-                    var ignored = data.remove(Node.builder(perm).value(false).build());
-                }
+            List<CompletableFuture<UUID>> restores = new ArrayList<>();
+            for (UUID uuid : batch) {
+                restores.add(restore(uuid, inOrder(uuid, () -> users.modifyUser(uuid, user -> {
+                    for (String perm : permissions) {
+                        user.data().remove(Node.builder(perm).value(false).build());
+                    }
+                }))));
             }
+            whenRestored(restores).thenAccept(this::logRestored);
+            return;
+        }
 
-            plugin.getLuckPerms().getUserManager().saveUser(user);
+        Map<UUID, String> groups = new HashMap<>();
+        List<UUID> unknown = new ArrayList<>();
+        for (UUID uuid : batch) {
+            String originalGroup = originalGroups.get(uuid);
+            if (originalGroup != null) {
+                groups.put(uuid, originalGroup);
+            } else {
+                unknown.add(uuid);
+            }
         }
+        CompletableFuture<Map<UUID, String>> stored = unknown.isEmpty()
+                ? CompletableFuture.completedFuture(Map.of())
+                : getStoredOriginalGroups(unknown);
+        stored.thenCompose(found -> {
+            groups.putAll(found);
+            // No stored group: never demoted by us, nothing to restore
+            List<CompletableFuture<UUID>> restores = new ArrayList<>();
+            groups.forEach((uuid, originalGroup) -> restores.add(restore(uuid, inOrder(uuid,
+                    () -> users.modifyUser(uuid, user -> {
+                        user.data().clear(node -> node.getKey().startsWith("group."));
+                        user.data().add(Node.builder("group." + originalGroup).build());
+                    })))));
+            return whenRestored(restores);
+        }).thenAccept(restored -> {
+            if (restored.isEmpty())
+                return;
+            restored.forEach(originalGroups::remove);
+            clearStoredOriginalGroups(restored);
+            logRestored(restored);
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to restore build permissions: " + DatabaseManager.rootMessage(e));
+            return null;
+        });
+    }
+
+    /** Starts {@code change} once the player's previous LuckPerms change has finished, failed or not. */
+    private <T> CompletableFuture<T> inOrder(UUID uuid, Supplier<CompletableFuture<T>> change) {
+        CompletableFuture<T> next = new CompletableFuture<>();
+        CompletableFuture<Void> done = next.handle((v, e) -> null);
+        CompletableFuture<Void> previous = changeTails.put(uuid, done);
+        (previous == null ? CompletableFuture.completedFuture(null) : previous).thenCompose(v -> change.get())
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        next.completeExceptionally(e);
+                    } else {
+                        next.complete(v);
+                    }
+                });
+        done.thenRun(() -> changeTails.remove(uuid, done));
+        return next;
+    }
+
+    /** The player's uuid once the change is saved, or null if it failed (logged). */
+    private CompletableFuture<UUID> restore(UUID uuid, CompletableFuture<Void> change) {
+        return change.thenApply(v -> uuid).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to restore build permissions for " + uuid + ": "
+                    + DatabaseManager.rootMessage(e));
+            return null;
+        });
+    }
+
+    private static CompletableFuture<List<UUID>> whenRestored(List<CompletableFuture<UUID>> restores) {
+        return CompletableFuture.allOf(restores.toArray(new CompletableFuture[0]))
+                .thenApply(v -> restores.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList());
+    }
 
-        plugin.getLogger().info("Restored build permissions for " + player.getName());
+    private void logRestored(List<UUID> restored) {
+        if (!restored.isEmpty())
+            plugin.getLogger().info("Restored build permissions for " + restored.size() + " player(s)");
     }
 
+    /**
+     * Hot path for block events: one volatile read and a set lookup for players who
+     * are not build-banned. Never mutates state; expiry is handled by the expiry task.
+     */
     public boolean isBuildBanned(UUID playerUuid) {
-        Punishment buildban = activeBuildBans.get(playerUuid);
-        if (buildban != null && buildban.isExpired()) {
-            activeBuildBans.remove(playerUuid);
-            removeBuildBan(playerUuid);
+        if (!activeIndex.buildBannedSnapshot().contains(playerUuid))
             return false;
-        }
-        return buildban != null;
+        return getActiveBuildBan(playerUuid) != null;
     }
 
     public Punishment getActiveBuildBan(UUID playerUuid) {
-        return activeBuildBans.get(playerUuid);
+        // Expired entries are released by PunishmentManager's expiry task.
+        Punishment buildban = activeIndex.get(playerUuid, PunishmentType.BUILDBAN);
+        return (buildban == null || buildban.isExpired()) ? null : buildban;
     }
 
     public void handlePlayerJoin(Player player) {
-        // Check if player needs buildban applied or restored
-        // Apply immediately from cache (fast)
-        if (isBuildBanned(player.getUniqueId())) {
-            applyBuildBan(player);
-        } else {
-            // Check for restoration asynchronously to avoid blocking main thread
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (needsRestoration(player.getUniqueId())) {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        restoreBuildPermissions(player);
-                        clearRestorationFlag(player.getUniqueId());
-                    });
-                }
-            });
+        UUID uuid = player.getUniqueId();
+        // Normally applied at issue time already; this catches bans issued while the
+        // LuckPerms change could not be made (no-op when the player is already demoted)
+        if (isBuildBanned(uuid)) {
+            applyBuildBan(uuid, player.getName());
+            return;
+        }
+        // Likewise a restore that failed: the original group stays stored until one succeeds.
+        // Joins are batched into one lookup, and players without a stored group are skipped
+        if (plugin.getConfig().getBoolean("buildban.restore-original-group", true)) {
+            queueRestore(uuid);
+        } else if (hasDeniedPermissions(uuid)) {
+            queueRestore(uuid);
         }
     }
 
-    private void saveOriginalGroup(UUID playerUuid, String group) {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "INSERT OR REPLACE INTO buildban_groups (player_uuid, original_group) VALUES (?, ?)";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, playerUuid.toString());
-                    stmt.setString(2, group);
-                    stmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to save original group: " + e.getMessage());
-            }
-        });
-    }
-
-    private String getStoredOriginalGroup(UUID playerUuid) {
-        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-            String query = "SELECT original_group FROM buildban_groups WHERE player_uuid = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, playerUuid.toString());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("original_group");
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to get stored original group: " + e.getMessage());
+    /** Whether the (loaded) user still has any of the permissions a buildban denies. */
+    private boolean hasDeniedPermissions(UUID uuid) {
+        User user = plugin.getLuckPerms().getUserManager().getUser(uuid);
+        if (user == null)
+            return false;
+        for (String perm : plugin.getConfig().getStringList("buildban.remove-permissions")) {
+            Node denied = Node.builder(perm).value(false).build();
+            if (user.data().contains(denied, NodeEqualityPredicate.EXACT).asBoolean())
+                return true;
         }
-        return null;
+        return false;
     }
 
-    private void clearStoredOriginalGroup(UUID playerUuid) {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "DELETE FROM buildban_groups WHERE player_uuid = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, playerUuid.toString());
-                    stmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to clear stored original group: " + e.getMessage());
+    private CompletableFuture<Integer> saveOriginalGroup(UUID playerUuid, String group) {
+        // REPLACE INTO is understood by both SQLite and MySQL
+        return plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "REPLACE INTO buildban_groups (player_uuid, original_group) VALUES (?, ?)")) {
+                stmt.setString(1, playerUuid.toString());
+                stmt.setString(2, group);
+                return stmt.executeUpdate();
             }
         });
     }
 
-    private void markForRestoration(UUID playerUuid) {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "UPDATE buildban_groups SET needs_restoration = 1 WHERE player_uuid = ?";
+    private CompletableFuture<Map<UUID, String>> getStoredOriginalGroups(List<UUID> playerUuids) {
+        return plugin.getDatabaseManager().read(conn -> {
+            Map<UUID, String> groups = new HashMap<>();
+            for (int from = 0; from < playerUuids.size(); from += LOOKUP_CHUNK) {
+                List<UUID> chunk = playerUuids.subList(from, Math.min(from + LOOKUP_CHUNK, playerUuids.size()));
+                String query = "SELECT player_uuid, original_group FROM buildban_groups WHERE player_uuid IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
                 try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, playerUuid.toString());
-                    stmt.executeUpdate();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i).toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            groups.put(UUID.fromString(rs.getString("player_uuid")), rs.getString("original_group"));
+                        }
+                    }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to mark for restoration: " + e.getMessage());
             }
+            return groups;
         });
     }
 
-    private boolean needsRestoration(UUID playerUuid) {
-        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-            String query = "SELECT needs_restoration FROM buildban_groups WHERE player_uuid = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, playerUuid.toString());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getBoolean("needs_restoration");
-                    }
+    /** Everyone with a stored original group, i.e. demoted and not yet restored. */
+    private CompletableFuture<List<UUID>> storedPlayers() {
+        return plugin.getDatabaseManager().read(conn -> {
+            List<UUID> players = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT player_uuid FROM buildban_groups");
+                    ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    players.add(UUID.fromString(rs.getString("player_uuid")));
                 }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to check restoration flag: " + e.getMessage());
-        }
-        return false;
+            return players;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to load stored original groups: " + DatabaseManager.rootMessage(e));
+            return List.of();
+        });
     }
 
-    private void clearRestorationFlag(UUID playerUuid) {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = "UPDATE buildban_groups SET needs_restoration = 0 WHERE player_uuid = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, playerUuid.toString());
-                    stmt.executeUpdate();
+    private void clearStoredOriginalGroups(List<UUID> playerUuids) {
+        plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM buildban_groups WHERE player_uuid = ?")) {
+                for (UUID uuid : playerUuids) {
+                    stmt.setString(1, uuid.toString());
+                    stmt.addBatch();
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to clear restoration flag: " + e.getMessage());
+                return stmt.executeBatch().length;
             }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to clear stored original groups: " + DatabaseManager.rootMessage(e));
+            return null;
         });
     }
-
-    private Punishment parsePunishment(ResultSet rs) throws SQLException {
-        return new Punishment(
-                rs.getInt("id"),
-                UUID.fromString(rs.getString("player_uuid")),
-                rs.getString("player_name"),
-                UUID.fromString(rs.getString("staff_uuid")),
-                rs.getString("staff_name"),
-                PunishmentType.valueOf(rs.getString("type")),
-                rs.getString("reason"),
-                rs.getLong("duration"),
-                rs.getLong("timestamp"),
-                rs.getLong("expires_at") == 0 ? null : rs.getLong("expires_at"),
-                rs.getBoolean("active"),
-                rs.getString("removed_by") != null ? UUID.fromString(rs.getString("removed_by")) : null,
-                rs.getLong("removed_at") == 0 ? null : rs.getLong("removed_at"),
-                rs.getString("removed_reason"),
-                rs.getString("server_name"),
-                rs.getString("ip_address"));
-    }
-}
\ No newline at end of file
+}
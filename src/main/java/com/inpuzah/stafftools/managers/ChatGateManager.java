@@ -0,0 +1,147 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import com.inpuzah.stafftools.utils.MessageUtil;
+import com.inpuzah.stafftools.utils.TimeUtil;
+import net.kyori.adventure.text.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player chat gate, read once per chat message.
+ *
+ * Only players who are muted or frozen have a {@link Gate}. The gates live in an
+ * immutable map that is replaced whenever a mute or freeze changes, so for everyone
+ * else the chat check is one volatile read and a miss. Each gate caches the rendered
+ * mute message until the displayed remaining time (whole minutes) changes.
+ */
+public class ChatGateManager {
+
+    private static final long PERMANENT_BUCKET = -1L;
+
+    private final StaffToolsPlugin plugin;
+    private final ActivePunishmentIndex activeIndex;
+    private final Object writeLock = new Object();
+
+    private volatile Map<UUID, Gate> gates = Map.of();
+    private volatile String prefix = "";
+    private volatile Component frozenMessage = Component.empty();
+
+    public ChatGateManager(StaffToolsPlugin plugin) {
+        this.plugin = plugin;
+        this.activeIndex = plugin.getPunishmentManager().getActiveIndex();
+        // Register first so no mute change slips between the rebuild and the listener.
+        activeIndex.setMuteListener(this::refresh);
+        reload();
+    }
+
+    /** Re-renders prefix-dependent messages and rebuilds every gate. */
+    public void reload() {
+        this.prefix = MessageUtil.getPrefix();
+        this.frozenMessage = MessageUtil.component(prefix + "&cYou cannot chat while frozen!");
+        synchronized (writeLock) {
+            Map<UUID, Gate> next = new HashMap<>();
+            for (Punishment mute : activeIndex.values(PunishmentType.MUTE)) {
+                next.put(mute.getPlayerUuid(), new Gate(mute, false));
+            }
+            for (UUID uuid : plugin.getFreezeManager().getFrozenPlayers()) {
+                next.put(uuid, new Gate(activeIndex.get(uuid, PunishmentType.MUTE), true));
+            }
+            gates = Map.copyOf(next);
+        }
+    }
+
+    /** The gate for this player, or null if they may chat freely. */
+    public Gate get(UUID playerUuid) {
+        return gates.get(playerUuid);
+    }
+
+    /** Recomputes one player's gate after their mute or freeze state changed. */
+    public void refresh(UUID playerUuid) {
+        synchronized (writeLock) {
+            Punishment mute = activeIndex.get(playerUuid, PunishmentType.MUTE);
+            boolean frozen = plugin.getFreezeManager().isFrozen(playerUuid);
+            Gate current = gates.get(playerUuid);
+            if (current == null && mute == null && !frozen)
+                return;
+            if (current != null && current.mute == mute && current.frozen == frozen)
+                return;
+
+            Map<UUID, Gate> next = new HashMap<>(gates);
+            if (mute == null && !frozen) {
+                next.remove(playerUuid);
+            } else {
+                next.put(playerUuid, new Gate(mute, frozen));
+            }
+            gates = Map.copyOf(next);
+        }
+    }
+
+    public Component getFrozenMessage() {
+        return frozenMessage;
+    }
+
+    public final class Gate {
+        private final Punishment mute;
+        private final boolean frozen;
+        private volatile Rendered rendered;
+
+        private Gate(Punishment mute, boolean frozen) {
+            this.mute = mute;
+            this.frozen = frozen;
+        }
+
+        public boolean isFrozen() {
+            return frozen;
+        }
+
+        /**
+         * The message to show a muted player, or null if the mute has lapsed
+         * (the expiry task will drop the gate on its next tick).
+         */
+        public Component muteMessage(long now) {
+            if (mute == null)
+                return null;
+            long bucket;
+            if (mute.isPermanent()) {
+                bucket = PERMANENT_BUCKET;
+            } else {
+                long remaining = mute.getExpiresAt() - now;
+                if (remaining <= 0)
+                    return null;
+                bucket = remaining / 60_000L;
+            }
+
+            Rendered r = rendered;
+            if (r != null && r.bucket == bucket && r.prefix == prefix)
+                return r.component;
+
+            String message = "&cYou are muted for: &f" + mute.getReason();
+            if (bucket == PERMANENT_BUCKET) {
+                message += "\n&cThis mute is permanent.";
+            } else {
+                message += "\n&cTime remaining: &f" + TimeUtil.formatDurationMillis(bucket * 60_000L);
+            }
+            String p = prefix;
+            Component component = MessageUtil.component(p + message);
+            rendered = new Rendered(bucket, p, component);
+            return component;
+        }
+    }
+
+    private static final class Rendered {
+        final long bucket;
+        final String prefix;
+        final Component component;
+
+        Rendered(long bucket, String prefix, Component component) {
+            this.bucket = bucket;
+            this.prefix = prefix;
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.PunishmentType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Detects and performs the one-way conversion of {@code punishments} and
+ * {@code audit_log} to the compact encoding read by {@link RowCodec#COMPACT}.
+ *
+ * Each table is copied into a compact twin in keyset batches, the original is
+ * dropped and the twin renamed into its place, then the original's indexes are
+ * recreated. On SQLite all of that is one transaction. MySQL cannot roll DDL back,
+ * so the twin only replaces the original once the copy is complete, in a single
+ * atomic rename, and the original is dropped after that; take a backup first and
+ * stop other nodes sharing the database while it runs.
+ */
+class CompactStorage {
+
+    private static final int COPY_BATCH = 5000;
+
+    private static final Set<String> PUNISHMENT_UUIDS = Set.of("player_uuid", "staff_uuid", "removed_by");
+    private static final Set<String> AUDIT_UUIDS = Set.of("staff_uuid", "target_uuid");
+
+    private final boolean mysql;
+    private final Logger logger;
+
+    CompactStorage(boolean mysql, Logger logger) {
+        this.mysql = mysql;
+        this.logger = logger;
+    }
+
+    /** True once {@code punishments} stores binary UUIDs. */
+    boolean isCompact(Connection conn) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, "punishments", "player_uuid")) {
+            while (rs.next()) {
+                String type = rs.getString("TYPE_NAME").toUpperCase(Locale.ROOT);
+                if (type.contains("BLOB") || type.contains("BINARY")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void convert(Connection conn) throws SQLException {
+        logger.info("[Database] Converting punishments and audit_log to compact encoding...");
+        long start = System.nanoTime();
+        String uuid = mysql ? "BINARY(16)" : "BLOB";
+        String autoInc = mysql ? "AUTO_INCREMENT" : "AUTOINCREMENT";
+
+        String punishments = """
+                CREATE TABLE punishments_compact (
+                    id INTEGER PRIMARY KEY %1$s,
+                    player_uuid %2$s NOT NULL,
+                    player_name VARCHAR(16) NOT NULL,
+                    staff_uuid %2$s NOT NULL,
+                    staff_name VARCHAR(16) NOT NULL,
+                    type SMALLINT NOT NULL,
+                    reason TEXT NOT NULL,
+                    duration BIGINT NOT NULL,
+                    timestamp BIGINT NOT NULL,
+                    expires_at BIGINT,
+                    active BOOLEAN NOT NULL DEFAULT 1,
+                    removed_by %2$s,
+                    removed_at BIGINT,
+                    removed_reason TEXT,
+                    server_name VARCHAR(50),
+                    ip_address VARCHAR(45),
+                    updated_at BIGINT
+                )
+                """.formatted(autoInc, uuid);
+        String audit = """
+                CREATE TABLE audit_log_compact (
+                    id INTEGER PRIMARY KEY %1$s,
+                    staff_uuid %2$s NOT NULL,
+                    staff_name VARCHAR(16) NOT NULL,
+                    action VARCHAR(50) NOT NULL,
+                    target_uuid %2$s,
+                    target_name VARCHAR(16),
+                    details TEXT,
+                    timestamp BIGINT NOT NULL,
+                    server_name VARCHAR(50)
+                )
+                """.formatted(autoInc, uuid);
+
+        if (mysql) {
+            convertTable(conn, "punishments", punishments, PUNISHMENT_UUIDS, true);
+            convertTable(conn, "audit_log", audit, AUDIT_UUIDS, false);
+        } else {
+            // The table swap must not trip appeal foreign keys; this pragma is a no-op inside a transaction.
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA foreign_keys=OFF");
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                convertTable(conn, "punishments", punishments, PUNISHMENT_UUIDS, true);
+                convertTable(conn, "audit_log", audit, AUDIT_UUIDS, false);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("PRAGMA foreign_keys=ON");
+                }
+            }
+        }
+        logger.info("[Database] Compact encoding conversion finished in "
+                + (System.nanoTime() - start) / 1_000_000L + "ms");
+    }
+
+    private void convertTable(Connection conn, String table, String ddl, Set<String> uuidColumns, boolean hasType)
+            throws SQLException {
+        long start = System.nanoTime();
+        if (!tableExists(conn, table) && tableExists(conn, table + "_compact")) {
+            // Only an older, non-atomic swap leaves this behind, and the twin may be the only copy of the data
+            throw new SQLException(table + " is missing but " + table + "_compact exists; an earlier conversion"
+                    + " was interrupted. Check " + table + "_compact and rename it to " + table + " before restarting");
+        }
+        Map<String, List<String>> indexes = indexesOf(conn, table);
+        try (Statement st = conn.createStatement()) {
+            // Left over from an interrupted MySQL run; the original still holds every row
+            st.execute("DROP TABLE IF EXISTS " + table + "_compact");
+            st.execute(ddl);
+        }
+
+        long copied = copyRows(conn, table, uuidColumns, hasType);
+
+        try (Statement st = conn.createStatement()) {
+            if (mysql) {
+                st.execute("SET FOREIGN_KEY_CHECKS=0");
+                try {
+                    // One statement, so there is always a table under the original name
+                    st.execute("DROP TABLE IF EXISTS " + table + "_old");
+                    st.execute("RENAME TABLE " + table + " TO " + table + "_old, "
+                            + table + "_compact TO " + table);
+                    st.execute("DROP TABLE " + table + "_old");
+                } finally {
+                    st.execute("SET FOREIGN_KEY_CHECKS=1");
+                }
+            } else {
+                // Index names are database-wide on SQLite; they go with the dropped table.
+                st.execute("DROP TABLE " + table);
+                st.execute("ALTER TABLE " + table + "_compact RENAME TO " + table);
+            }
+            for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+                st.execute("CREATE INDEX " + index.getKey() + " ON " + table + " ("
+                        + String.join(", ", index.getValue()) + ")");
+            }
+        }
+        logger.info("[Database]   " + table + ": " + copied + " rows, " + indexes.size() + " indexes ("
+                + (System.nanoTime() - start) / 1_000_000L + "ms)");
+    }
+
+    private long copyRows(Connection conn, String table, Set<String> uuidColumns, boolean hasType)
+            throws SQLException {
+        RowCodec out = RowCodec.COMPACT;
+        long copied = 0;
+        int lastId = 0;
+        String insert = null;
+        List<String> columns = null;
+        while (true) {
+            try (PreparedStatement select = conn.prepareStatement(
+                    "SELECT * FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + COPY_BATCH)) {
+                select.setInt(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (columns == null) {
+                        columns = columnsOf(rs.getMetaData());
+                        insert = "INSERT INTO " + table + "_compact (" + String.join(", ", columns) + ") VALUES ("
+                                + "?, ".repeat(columns.size() - 1) + "?)";
+                    }
+                    int rows = 0;
+                    try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                        while (rs.next()) {
+                            for (int i = 0; i < columns.size(); i++) {
+                                String column = columns.get(i);
+                                if (uuidColumns.contains(column)) {
+                                    String text = rs.getString(column);
+                                    out.setUuid(ps, i + 1, text == null ? null : UUID.fromString(text));
+                                } else if (hasType && column.equals("type")) {
+                                    out.setType(ps, i + 1, PunishmentType.valueOf(rs.getString(column)));
+                                } else {
+                                    ps.setObject(i + 1, rs.getObject(column));
+                                }
+                            }
+                            ps.addBatch();
+                            lastId = rs.getInt("id");
+                            rows++;
+                        }
+                        if (rows == 0) {
+                            return copied;
+                        }
+                        ps.executeBatch();
+                    }
+                    copied += rows;
+                }
+            }
+            if (copied % 100_000 < COPY_BATCH) {
+                logger.info("[Database]   " + table + ": " + copied + " rows copied");
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, new String[] {"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static List<String> columnsOf(ResultSetMetaData meta) throws SQLException {
+        List<String> columns = new ArrayList<>(meta.getColumnCount());
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.add(meta.getColumnName(i).toLowerCase(Locale.ROOT));
+        }
+        return columns;
+    }
+
+    /** Non-unique secondary indexes, name to ordered columns. */
+    private static Map<String, List<String>> indexesOf(Connection conn, String table) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name == null || column == null || !rs.getBoolean("NON_UNIQUE")
+                        || name.equalsIgnoreCase("PRIMARY") || name.startsWith("sqlite_autoindex")) {
+                    continue;
+                }
+                List<String> cols = indexes.computeIfAbsent(name, k -> new ArrayList<>());
+                int position = rs.getShort("ORDINAL_POSITION");
+                while (cols.size() < position) {
+                    cols.add(null);
+                }
+                cols.set(position - 1, column);
+            }
+        }
+        return indexes;
+    }
+}
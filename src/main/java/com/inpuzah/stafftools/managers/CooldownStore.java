@@ -0,0 +1,230 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import org.bukkit.Bukkit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Report and appeal cooldowns: one concurrent map per {@link Scope}, from player to
+ * the time their cooldown ends.
+ *
+ * Expired entries are dropped when read and by a sweep every minute, so the maps
+ * only ever hold running cooldowns. With {@code cooldowns.persist} every started
+ * cooldown is also written to the {@code cooldowns} table (one fixed-width row per
+ * running cooldown, removed by the same sweep) and read back on startup, so a
+ * restart no longer clears them. With {@code cooldowns.shared} as well, a player with
+ * nothing in memory is looked up in the table, so servers sharing one MySQL
+ * database honour cooldowns started on each other.
+ */
+public final class CooldownStore {
+
+    public enum Scope {
+        REPORT(1), APPEAL(2);
+
+        private final int code;
+
+        Scope(int code) {
+            this.code = code;
+        }
+    }
+
+    private static final long SWEEP_TICKS = 20L * 60;
+
+    private final StaffToolsPlugin plugin;
+    private final boolean persist;
+    private final boolean shared;
+    private final Map<Scope, Map<UUID, Long>> deadlines = new EnumMap<>(Scope.class);
+    private final CompletableFuture<Void> loaded;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public CooldownStore(StaffToolsPlugin plugin) {
+        this.plugin = plugin;
+        this.persist = plugin.getConfig().getBoolean("cooldowns.persist", false);
+        this.shared = persist && plugin.getConfig().getBoolean("cooldowns.shared", false);
+        for (Scope scope : Scope.values()) {
+            deadlines.put(scope, new ConcurrentHashMap<>());
+        }
+        this.loaded = persist ? load() : CompletableFuture.completedFuture(null);
+        Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::sweep, SWEEP_TICKS, SWEEP_TICKS);
+    }
+
+    /** Milliseconds left on the player's cooldown; 0 when none is running. */
+    public CompletableFuture<Long> remaining(Scope scope, UUID player) {
+        return loaded.thenCompose(v -> {
+            long left = local(scope, player, System.currentTimeMillis());
+            if (left > 0) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(left);
+            }
+            misses.incrementAndGet();
+            if (!shared) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            lookups.incrementAndGet();
+            return plugin.getDatabaseManager().read(conn -> select(conn, scope, player)).thenApply(deadline -> {
+                if (deadline == null)
+                    return 0L;
+                deadlines.get(scope).merge(player, deadline, Math::max);
+                return Math.max(0L, deadline - System.currentTimeMillis());
+            }).exceptionally(e -> {
+                plugin.getLogger().warning("Failed to look up cooldown: " + DatabaseManager.rootMessage(e));
+                return 0L;
+            });
+        });
+    }
+
+    /** Starts (or extends) the player's cooldown for {@code durationMs}. */
+    public void start(Scope scope, UUID player, long durationMs) {
+        if (durationMs <= 0)
+            return;
+        long deadline = System.currentTimeMillis() + durationMs;
+        deadlines.get(scope).merge(player, deadline, Math::max);
+        if (!persist)
+            return;
+        plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "REPLACE INTO cooldowns (scope, uuid_msb, uuid_lsb, expires_at) VALUES (?, ?, ?, ?)")) {
+                ps.setInt(1, scope.code);
+                ps.setLong(2, player.getMostSignificantBits());
+                ps.setLong(3, player.getLeastSignificantBits());
+                ps.setLong(4, deadline);
+                return ps.executeUpdate();
+            }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to save cooldown: " + DatabaseManager.rootMessage(e));
+            return null;
+        });
+    }
+
+    public boolean isPersistent() {
+        return persist;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<UUID, Long> map : deadlines.values()) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private long local(Scope scope, UUID player, long now) {
+        Map<UUID, Long> map = deadlines.get(scope);
+        Long deadline = map.get(player);
+        if (deadline == null)
+            return 0L;
+        if (deadline <= now) {
+            if (map.remove(player, deadline))
+                evicted.incrementAndGet();
+            return 0L;
+        }
+        return deadline - now;
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map<UUID, Long> map : deadlines.values()) {
+            map.values().removeIf(deadline -> {
+                if (deadline > now)
+                    return false;
+                evicted.incrementAndGet();
+                return true;
+            });
+        }
+        if (!persist)
+            return;
+        plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM cooldowns WHERE expires_at <= ?")) {
+                ps.setLong(1, now);
+                return ps.executeUpdate();
+            }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to purge cooldowns: " + DatabaseManager.rootMessage(e));
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> load() {
+        long now = System.currentTimeMillis();
+        return plugin.getDatabaseManager().read(conn -> {
+            int rows = 0;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT scope, uuid_msb, uuid_lsb, expires_at FROM cooldowns WHERE expires_at > ?")) {
+                ps.setLong(1, now);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Scope scope = fromCode(rs.getInt("scope"));
+                        if (scope == null)
+                            continue;
+                        UUID player = new UUID(rs.getLong("uuid_msb"), rs.getLong("uuid_lsb"));
+                        deadlines.get(scope).merge(player, rs.getLong("expires_at"), Math::max);
+                        rows++;
+                    }
+                }
+            }
+            return rows;
+        }).handle((rows, e) -> {
+            if (e != null) {
+                plugin.getLogger().severe("Failed to load cooldowns: " + DatabaseManager.rootMessage(e));
+            } else if (rows > 0) {
+                plugin.getLogger().info("Restored " + rows + " running cooldowns");
+            }
+            return null;
+        });
+    }
+
+    private static Long select(Connection conn, Scope scope, UUID player) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT expires_at FROM cooldowns "
+                + "WHERE scope = ? AND uuid_msb = ? AND uuid_lsb = ? AND expires_at > ?")) {
+            ps.setInt(1, scope.code);
+            ps.setLong(2, player.getMostSignificantBits());
+            ps.setLong(3, player.getLeastSignificantBits());
+            ps.setLong(4, System.currentTimeMillis());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static Scope fromCode(int code) {
+        for (Scope scope : Scope.values()) {
+            if (scope.code == code)
+                return scope;
+        }
+        return null;
+    }
+}
@@ -3,92 +3,149 @@ package com.inpuzah.stafftools.managers;
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.io.File;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 public class DatabaseManager {
 
-    private final StaffToolsPlugin plugin;
+    /** A unit of database work run with a borrowed connection. */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // How long a check-then-write waits for another server's MySQL named lock
+    private static final int LOCK_TIMEOUT_SECONDS = 10;
+
+    private final ConfigurationSection config;
+    private final File dataFolder;
+    private final Logger logger;
     private HikariDataSource dataSource;
+    // SQLite single-writer mode only: the writer's own one-connection pool
+    private HikariDataSource writeSource;
+    private DatabaseWriter writer;
     private ExecutorService executor;
     private final String type;
+    private int schemaVersion;
+    private RowCodec codec = RowCodec.TEXT;
 
     public DatabaseManager(StaffToolsPlugin plugin) {
-        this.plugin = plugin;
-        this.type = plugin.getConfig().getString("database.type", "sqlite");
+        this(plugin.getConfig(), plugin.getDataFolder(), plugin.getLogger());
+    }
+
+    /** Standalone construction (load-test harness); reads the same keys as config.yml. */
+    public DatabaseManager(ConfigurationSection config, File dataFolder, Logger logger) {
+        this.config = config;
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.type = config.getString("database.type", "sqlite");
     }
 
     public void initialize() throws SQLException {
-        HikariConfig config = new HikariConfig();
+        HikariConfig hikari = new HikariConfig();
         int configuredPoolSize = 3;
+        boolean singleWriter = false;
 
         if (type.equalsIgnoreCase("mysql")) {
             // ----- MySQL -----
-            String host = plugin.getConfig().getString("database.mysql.host");
-            int port = plugin.getConfig().getInt("database.mysql.port");
-            String database = plugin.getConfig().getString("database.mysql.database");
-            String username = plugin.getConfig().getString("database.mysql.username");
-            String password = plugin.getConfig().getString("database.mysql.password");
-            configuredPoolSize = Math.max(5, plugin.getConfig().getInt("database.mysql.pool-size", 10));
-
-            config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database
+            String host = config.getString("database.mysql.host");
+            int port = config.getInt("database.mysql.port");
+            String database = config.getString("database.mysql.database");
+            String username = config.getString("database.mysql.username");
+            String password = config.getString("database.mysql.password");
+            configuredPoolSize = Math.max(5, config.getInt("database.mysql.pool-size", 10));
+
+            hikari.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database
                     + "?useSSL=false&autoReconnect=true&serverTimezone=UTC&useUnicode=true&characterEncoding=UTF-8");
-            config.setUsername(username);
-            config.setPassword(password);
-            config.setMaximumPoolSize(configuredPoolSize);
-            config.setMinimumIdle(Math.min(2, configuredPoolSize));
-            config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+            hikari.setUsername(username);
+            hikari.setPassword(password);
+            hikari.setMaximumPoolSize(configuredPoolSize);
+            hikari.setMinimumIdle(Math.min(2, configuredPoolSize));
+            hikari.setDriverClassName("com.mysql.cj.jdbc.Driver");
 
             // Timeouts
-            config.setConnectionTimeout(10000);
-            config.setIdleTimeout(60000);
-            config.setMaxLifetime(600000);
+            hikari.setConnectionTimeout(10000);
+            hikari.setIdleTimeout(60000);
+            hikari.setMaxLifetime(600000);
 
         } else {
             // ----- SQLite (safe, single-writer, no 30s stalls) -----
-            File dataFolder = plugin.getDataFolder();
             if (!dataFolder.exists())
                 dataFolder.mkdirs();
 
-            String fileName = plugin.getConfig().getString("database.sqlite.file", "stafftools.db");
+            String fileName = config.getString("database.sqlite.file", "stafftools.db");
             File dbFile = new File(dataFolder, fileName);
 
             // WAL + busy timeout + saner defaults
-            config.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath()
-                    + "?journal_mode=WAL&busy_timeout=10000&synchronous=NORMAL&cache_size=10000");
-            config.setDriverClassName("org.sqlite.JDBC");
+            String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+            singleWriter = config.getBoolean("database.sqlite.single-writer", true);
+            if (singleWriter) {
+                // Every write goes through the writer's connection; this pool only
+                // reads, so readers never take the write lock or hit SQLITE_BUSY.
+                hikari.setJdbcUrl(url + "?busy_timeout=10000&cache_size=10000");
+                hikari.addDataSourceProperty("open_mode", "1"); // SQLITE_OPEN_READONLY
+            } else {
+                hikari.setJdbcUrl(url + "?journal_mode=WAL&busy_timeout=10000&synchronous=NORMAL&cache_size=10000");
+            }
+            hikari.setDriverClassName("org.sqlite.JDBC");
 
             // SQLite: allow a few pooled connections to reduce 10s waits, WAL handles
             // readers
-            configuredPoolSize = Math.max(2, plugin.getConfig().getInt("database.sqlite.pool-size", 3));
-            config.setMaximumPoolSize(configuredPoolSize);
-            config.setMinimumIdle(Math.min(1, configuredPoolSize));
+            configuredPoolSize = Math.max(2, config.getInt("database.sqlite.pool-size", 3));
+            hikari.setMaximumPoolSize(configuredPoolSize);
+            hikari.setMinimumIdle(Math.min(1, configuredPoolSize));
 
             // Timeouts
-            config.setConnectionTimeout(10000);
-            config.setIdleTimeout(30000);
-            config.setMaxLifetime(600000);
+            hikari.setConnectionTimeout(10000);
+            hikari.setIdleTimeout(30000);
+            hikari.setMaxLifetime(600000);
         }
 
-        config.setPoolName("StaffTools-Pool");
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikari.setPoolName("StaffTools-Pool");
+        hikari.addDataSourceProperty("cachePrepStmts", "true");
+        hikari.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikari.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
         // Surface leaks quickly if a connection gets stuck
-        config.setLeakDetectionThreshold(5000);
+        hikari.setLeakDetectionThreshold(5000);
+
+        // Dedicated DB executor sized to pool; keeps CF work off common fork-join
+        int threads = Math.max(2, Math.min(configuredPoolSize, 8));
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(r);
+            t.setName("stafftools-db-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = Executors.newFixedThreadPool(threads, tf);
+
+        // The writer opens the file first so it exists, in WAL mode, before any
+        // read-only connection is made.
+        if (singleWriter) {
+            writeSource = createWriteSource();
+            writer = new DatabaseWriter(writeSource, executor, logger,
+                    config.getInt("database.sqlite.write-batch-max", 64));
+        }
 
-        dataSource = new HikariDataSource(config);
+        dataSource = new HikariDataSource(hikari);
 
         // One-time pragmas for SQLite (no-op on MySQL)
         if (!isMySQL()) {
-            try (Connection c = getConnection(); Statement s = c.createStatement()) {
+            try (Connection c = getWriteConnection(); Statement s = c.createStatement()) {
                 s.execute("PRAGMA journal_mode=WAL;");
                 s.execute("PRAGMA busy_timeout=10000;");
                 s.execute("PRAGMA synchronous=NORMAL;");
@@ -96,236 +153,238 @@ public class DatabaseManager {
             }
         }
 
-        // Dedicated DB executor sized to pool; keeps CF work off common fork-join
-        int threads = Math.max(2, Math.min(configuredPoolSize, 8));
-        ThreadFactory tf = r -> {
-            Thread t = new Thread(r);
-            t.setName("stafftools-db-" + t.getId());
-            t.setDaemon(true);
-            return t;
-        };
-        executor = Executors.newFixedThreadPool(threads, tf);
+        // Create tables and apply any pending schema migrations
+        migrateSchema();
+    }
 
-        // Create tables
-        createTables();
+    private HikariDataSource createWriteSource() {
+        String fileName = config.getString("database.sqlite.file", "stafftools.db");
+        HikariConfig hikari = new HikariConfig();
+        hikari.setJdbcUrl("jdbc:sqlite:" + new File(dataFolder, fileName).getAbsolutePath()
+                + "?journal_mode=WAL&busy_timeout=10000&synchronous=NORMAL&cache_size=10000&foreign_keys=true");
+        hikari.setDriverClassName("org.sqlite.JDBC");
+        hikari.setPoolName("StaffTools-Writer");
+        hikari.setMaximumPoolSize(1);
+        hikari.setMinimumIdle(1);
+        hikari.setConnectionTimeout(10000);
+        hikari.setMaxLifetime(600000);
+        return new HikariDataSource(hikari);
     }
 
-    private void createTables() throws SQLException {
-        try (Connection conn = getConnection()) {
-            String autoInc = type.equalsIgnoreCase("mysql") ? "AUTO_INCREMENT" : "AUTOINCREMENT";
-
-            // Punishments
-            String punishmentsTable = """
-                        CREATE TABLE IF NOT EXISTS punishments (
-                            id INTEGER PRIMARY KEY %s,
-                            player_uuid VARCHAR(36) NOT NULL,
-                            player_name VARCHAR(16) NOT NULL,
-                            staff_uuid VARCHAR(36) NOT NULL,
-                            staff_name VARCHAR(16) NOT NULL,
-                            type VARCHAR(20) NOT NULL,
-                            reason TEXT NOT NULL,
-                            duration BIGINT NOT NULL,
-                            timestamp BIGINT NOT NULL,
-                            expires_at BIGINT,
-                            active BOOLEAN NOT NULL DEFAULT 1,
-                            removed_by VARCHAR(36),
-                            removed_at BIGINT,
-                            removed_reason TEXT,
-                            server_name VARCHAR(50),
-                            ip_address VARCHAR(45)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(punishmentsTable)) {
-                stmt.execute();
-            }
+    /** Connection for schema work at startup; the writer's connection in single-writer mode. */
+    private Connection getWriteConnection() throws SQLException {
+        return writeSource != null ? writeSource.getConnection() : dataSource.getConnection();
+    }
 
-            // Appeals
-            String appealsTable = """
-                        CREATE TABLE IF NOT EXISTS punishment_appeals (
-                            id INTEGER PRIMARY KEY %s,
-                            punishment_id INTEGER NOT NULL,
-                            player_uuid VARCHAR(36) NOT NULL,
-                            appeal_text TEXT NOT NULL,
-                            timestamp BIGINT NOT NULL,
-                            status VARCHAR(20) NOT NULL,
-                            reviewed_by VARCHAR(36),
-                            reviewed_at BIGINT,
-                            review_note TEXT,
-                            FOREIGN KEY (punishment_id) REFERENCES punishments(id)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(appealsTable)) {
-                stmt.execute();
-            }
+    private void migrateSchema() throws SQLException {
+        try (Connection conn = getWriteConnection()) {
+            schemaVersion = new SchemaMigrator(isMySQL(), logger).migrate(conn);
 
-            // Staff notes
-            String notesTable = """
-                        CREATE TABLE IF NOT EXISTS staff_notes (
-                            id INTEGER PRIMARY KEY %s,
-                            player_uuid VARCHAR(36) NOT NULL,
-                            player_name VARCHAR(16) NOT NULL,
-                            staff_uuid VARCHAR(36) NOT NULL,
-                            staff_name VARCHAR(16) NOT NULL,
-                            note TEXT NOT NULL,
-                            timestamp BIGINT NOT NULL,
-                            removed BOOLEAN NOT NULL DEFAULT 0
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(notesTable)) {
-                stmt.execute();
+            CompactStorage compact = new CompactStorage(isMySQL(), logger);
+            boolean isCompact = compact.isCompact(conn);
+            if (!isCompact && config.getBoolean("database.compact-encoding", false)) {
+                compact.convert(conn);
+                isCompact = true;
             }
+            codec = isCompact ? RowCodec.COMPACT : RowCodec.TEXT;
+        }
+    }
 
-            // Audit
-            String auditTable = """
-                        CREATE TABLE IF NOT EXISTS audit_log (
-                            id INTEGER PRIMARY KEY %s,
-                            staff_uuid VARCHAR(36) NOT NULL,
-                            staff_name VARCHAR(16) NOT NULL,
-                            action VARCHAR(50) NOT NULL,
-                            target_uuid VARCHAR(36),
-                            target_name VARCHAR(16),
-                            details TEXT,
-                            timestamp BIGINT NOT NULL,
-                            server_name VARCHAR(50)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(auditTable)) {
-                stmt.execute();
-            }
+    /**
+     * A pooled connection. In SQLite single-writer mode it is read-only; writes go
+     * through {@link #write(SqlWork)}.
+     */
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
 
-            // Sessions
-            String sessionsTable = """
-                        CREATE TABLE IF NOT EXISTS player_sessions (
-                            id INTEGER PRIMARY KEY %s,
-                            player_uuid VARCHAR(36) NOT NULL,
-                            player_name VARCHAR(16) NOT NULL,
-                            ip_address VARCHAR(45) NOT NULL,
-                            join_time BIGINT NOT NULL,
-                            leave_time BIGINT,
-                            server_name VARCHAR(50)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(sessionsTable)) {
-                stmt.execute();
+    /** Runs a query on the DB executor with a connection from the (read) pool. */
+    public <T> CompletableFuture<T> read(SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = getConnection()) {
+                return work.run(conn);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
             }
+        }, executor);
+    }
 
-            // Reports
-            String reportsTable = """
-                        CREATE TABLE IF NOT EXISTS reports (
-                            id INTEGER PRIMARY KEY %s,
-                            reporter_uuid VARCHAR(36) NOT NULL,
-                            reporter_name VARCHAR(16) NOT NULL,
-                            reported_uuid VARCHAR(36) NOT NULL,
-                            reported_name VARCHAR(16) NOT NULL,
-                            reason TEXT NOT NULL,
-                            timestamp BIGINT NOT NULL,
-                            status VARCHAR(20) NOT NULL,
-                            handled_by VARCHAR(36),
-                            handled_by_name VARCHAR(16),
-                            handled_at BIGINT,
-                            handler_note TEXT,
-                            server_name VARCHAR(50)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(reportsTable)) {
-                stmt.execute();
-            }
+    /**
+     * Runs an insert/update/delete. On SQLite in single-writer mode it is queued for
+     * the writer thread and committed together with whatever else is waiting; the
+     * future completes on the DB executor once the transaction has committed. On
+     * MySQL it runs on the DB executor with an auto-commit pooled connection.
+     *
+     * The work must not block on other database futures.
+     */
+    public <T> CompletableFuture<T> write(SqlWork<T> work) {
+        if (writer != null) {
+            return writer.submit(work);
+        }
+        return read(work);
+    }
 
-            // BuildBan groups
-            String buildBanGroupsTable = """
-                        CREATE TABLE IF NOT EXISTS buildban_groups (
-                            player_uuid VARCHAR(36) PRIMARY KEY,
-                            original_group VARCHAR(50) NOT NULL,
-                            needs_restoration BOOLEAN DEFAULT 0
-                        )
-                    """;
-            try (PreparedStatement stmt = conn.prepareStatement(buildBanGroupsTable)) {
-                stmt.execute();
-            }
+    /** Schema version after startup migrations, see {@link SchemaMigrator}. */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
 
-            // Punishment templates
-            String templatesTable = """
-                        CREATE TABLE IF NOT EXISTS punishment_templates (
-                            id INTEGER PRIMARY KEY %s,
-                            name VARCHAR(50) UNIQUE NOT NULL,
-                            type VARCHAR(20) NOT NULL,
-                            reason TEXT NOT NULL,
-                            duration BIGINT NOT NULL,
-                            created_by VARCHAR(36) NOT NULL,
-                            created_at BIGINT NOT NULL
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(templatesTable)) {
-                stmt.execute();
-            }
+    /** Column encoding of the punishments and audit tables, detected at startup. */
+    public RowCodec getCodec() {
+        return codec;
+    }
+
+    public boolean isSingleWriter() {
+        return writer != null;
+    }
+
+    /** Message of the underlying cause, for logging failed futures. */
+    public static String rootMessage(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t.getMessage();
+    }
 
-            // Staff statistics
-            String statsTable = """
-                        CREATE TABLE IF NOT EXISTS staff_statistics (
-                            id INTEGER PRIMARY KEY %s,
-                            staff_uuid VARCHAR(36) NOT NULL,
-                            action_type VARCHAR(50) NOT NULL,
-                            count INTEGER DEFAULT 1,
-                            last_action BIGINT NOT NULL,
-                            date_key VARCHAR(10) NOT NULL,
-                            UNIQUE(staff_uuid, action_type, date_key)
-                        )
-                    """.formatted(autoInc);
-            try (PreparedStatement stmt = conn.prepareStatement(statsTable)) {
-                stmt.execute();
+    /**
+     * Runs {@code work} as one transaction. The writer's connection is already inside
+     * one; an auto-commit pooled connection gets its own, rolled back on failure.
+     */
+    static <T> T inTransaction(Connection conn, SqlWork<T> work) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return work.run(conn);
+        }
+        conn.setAutoCommit(false);
+        try {
+            T result = work.run(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
             }
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
 
-            createIndexes(conn);
+    /**
+     * Runs {@code work} so that no other connection writes in between its statements,
+     * for check-then-write pairs. Inside the writer's transaction nothing else can
+     * anyway. On an auto-commit connection (MySQL, or SQLite with single-writer off)
+     * other connections, possibly on other servers, can, so the work runs under the
+     * MySQL named lock {@code lockName} or in a {@code BEGIN IMMEDIATE} transaction
+     * that holds SQLite's write lock throughout.
+     */
+    static <T> T exclusively(Connection conn, boolean mysql, String lockName, SqlWork<T> work)
+            throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return work.run(conn);
         }
+        return mysql ? underNamedLock(conn, lockName, work) : inImmediateTransaction(conn, work);
     }
 
-    private void createIndexes(Connection conn) throws SQLException {
-        String[] indexes = {
-                "CREATE INDEX IF NOT EXISTS idx_punishments_player ON punishments(player_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_punishments_active ON punishments(active)",
-                "CREATE INDEX IF NOT EXISTS idx_punishments_type ON punishments(type)",
-                "CREATE INDEX IF NOT EXISTS idx_punishments_timestamp ON punishments(timestamp)",
-                "CREATE INDEX IF NOT EXISTS idx_appeals_punishment ON punishment_appeals(punishment_id)",
-                "CREATE INDEX IF NOT EXISTS idx_appeals_player ON punishment_appeals(player_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_appeals_status ON punishment_appeals(status)",
-                "CREATE INDEX IF NOT EXISTS idx_notes_player ON staff_notes(player_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_audit_staff ON audit_log(staff_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_audit_action ON audit_log(action)",
-                "CREATE INDEX IF NOT EXISTS idx_sessions_player ON player_sessions(player_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_sessions_ip ON player_sessions(ip_address)",
-                "CREATE INDEX IF NOT EXISTS idx_reports_status ON reports(status)",
-                "CREATE INDEX IF NOT EXISTS idx_reports_reported ON reports(reported_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_reports_timestamp ON reports(timestamp)",
-                "CREATE INDEX IF NOT EXISTS idx_stats_staff ON staff_statistics(staff_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_stats_date ON staff_statistics(date_key)"
-        };
-        for (String index : indexes) {
-            try (PreparedStatement stmt = conn.prepareStatement(index)) {
-                stmt.execute();
+    /** MySQL GET_LOCK is server-wide, so it also serializes servers sharing the database. */
+    private static <T> T underNamedLock(Connection conn, String name, SqlWork<T> work) throws SQLException {
+        try (PreparedStatement lock = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, name);
+            lock.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for lock " + name);
+                }
+            }
+        }
+        try {
+            return work.run(conn);
+        } finally {
+            try (PreparedStatement release = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                release.setString(1, name);
+                release.executeQuery().close();
             }
         }
     }
 
-    public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+    private static <T> T inImmediateTransaction(Connection conn, SqlWork<T> work) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("BEGIN IMMEDIATE");
+        }
+        try {
+            T result = work.run(conn);
+            try (Statement st = conn.createStatement()) {
+                st.execute("COMMIT");
+            }
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("ROLLBACK");
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e;
+        }
+    }
+
+    /** Live pool counters (active, idle, threads waiting for a connection). */
+    public HikariPoolMXBean getPoolStats() {
+        return dataSource.getHikariPoolMXBean();
     }
 
     public ExecutorService getExecutor() {
         return executor;
     }
 
+    // ----- Writer metrics (zero outside SQLite single-writer mode) -----
+    public int getWriteQueueDepth() {
+        return writer != null ? writer.getQueueDepth() : 0;
+    }
+
+    public long getWriteTaskCount() {
+        return writer != null ? writer.getTaskCount() : 0;
+    }
+
+    public long getWriteTransactionCount() {
+        return writer != null ? writer.getTransactionCount() : 0;
+    }
+
+    public long getFailedWriteCount() {
+        return writer != null ? writer.getFailedTaskCount() + writer.getFailedCommitCount() : 0;
+    }
+
+    public long getLargestWriteBatch() {
+        return writer != null ? writer.getLargestBatch() : 0;
+    }
+
+    /**
+     * Writes out queued writes, lets pending callbacks finish and closes the pools.
+     * Call last in onDisable, after everything that may still write (audit flush).
+     */
     public void shutdown() {
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdownNow();
+        if (writer != null) {
+            writer.close(10000);
         }
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
+        if (executor != null && !executor.isShutdown()) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
         }
+        close();
     }
 
     public void close() {
         if (dataSource != null && !dataSource.isClosed())
             dataSource.close();
+        if (writeSource != null && !writeSource.isClosed())
+            writeSource.close();
     }
 
     public boolean isMySQL() {
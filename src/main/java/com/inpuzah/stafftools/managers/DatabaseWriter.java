@@ -0,0 +1,218 @@
+package com.inpuzah.stafftools.managers;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The only thread that writes to the SQLite file.
+ *
+ * Work is queued and picked up by one thread holding one connection. Whatever is
+ * waiting when the thread wakes up (up to {@code maxBatch} items) runs in a single
+ * transaction, each item behind its own savepoint so a failing item is rolled back
+ * alone. Futures are completed on {@code completions} after the commit, so callers
+ * only ever observe committed rows and never run their callbacks on this thread.
+ *
+ * Work must not wait on other database futures: it runs on the writer thread and
+ * would wait on itself.
+ */
+class DatabaseWriter {
+
+    private final HikariDataSource dataSource;
+    private final Executor completions;
+    private final Logger logger;
+    private final int maxBatch;
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong tasks = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong failedCommits = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    DatabaseWriter(HikariDataSource dataSource, Executor completions, Logger logger, int maxBatch) {
+        this.dataSource = dataSource;
+        this.completions = completions;
+        this.logger = logger;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.thread = new Thread(this::run, "stafftools-db-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    <T> CompletableFuture<T> submit(DatabaseManager.SqlWork<T> work) {
+        Task<T> task = new Task<>(work);
+        if (closed) {
+            task.future.completeExceptionally(new SQLException("Database writer is closed"));
+            return task.future;
+        }
+        queue.add(task);
+        return task.future;
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                Task<?> first = queue.poll(250, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty())
+                        return;
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                if (queue.isEmpty())
+                    return;
+                // Interrupted with work still queued: write it out before leaving.
+                closed = true;
+                Thread.interrupted();
+                continue;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            execute(batch);
+            batch.clear();
+        }
+    }
+
+    private void execute(List<Task<?>> batch) {
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Task<?> task : batch) {
+                    Savepoint savepoint = batch.size() > 1 ? conn.setSavepoint() : null;
+                    try {
+                        task.run(conn);
+                        if (savepoint != null)
+                            conn.releaseSavepoint(savepoint);
+                    } catch (SQLException | RuntimeException e) {
+                        task.failure = e;
+                        if (savepoint != null)
+                            conn.rollback(savepoint);
+                        else
+                            conn.rollback();
+                    }
+                }
+                conn.commit();
+                transactions.incrementAndGet();
+            } catch (SQLException e) {
+                failedCommits.incrementAndGet();
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+                failAll(batch, e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // Could not get the connection or reset it; nothing in this batch is trusted.
+            failAll(batch, e);
+        }
+        for (Task<?> task : batch) {
+            tasks.incrementAndGet();
+            if (task.failure != null)
+                failedTasks.incrementAndGet();
+            complete(task);
+        }
+    }
+
+    private static void failAll(List<Task<?>> batch, Exception e) {
+        for (Task<?> task : batch) {
+            if (task.failure == null)
+                task.failure = e;
+        }
+    }
+
+    private void complete(Task<?> task) {
+        try {
+            completions.execute(task::complete);
+        } catch (RejectedExecutionException e) {
+            // Executor already stopped during shutdown
+            task.complete();
+        }
+    }
+
+    /** Stops accepting work, writes out what is queued and waits up to {@code timeoutMs}. */
+    void close(long timeoutMs) {
+        closed = true;
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.warning("[Database] Writer still busy after " + timeoutMs + "ms on shutdown; "
+                    + queue.size() + " queued writes abandoned.");
+            thread.interrupt();
+            return;
+        }
+        // Anything that raced past the closed check after the thread left
+        List<Task<?>> late = new ArrayList<>();
+        queue.drainTo(late);
+        failAll(late, new SQLException("Database writer is closed"));
+        late.forEach(Task::complete);
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    long getTaskCount() {
+        return tasks.get();
+    }
+
+    long getTransactionCount() {
+        return transactions.get();
+    }
+
+    long getFailedTaskCount() {
+        return failedTasks.get();
+    }
+
+    long getFailedCommitCount() {
+        return failedCommits.get();
+    }
+
+    long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    private static final class Task<T> {
+        final DatabaseManager.SqlWork<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Exception failure;
+
+        Task(DatabaseManager.SqlWork<T> work) {
+            this.work = work;
+        }
+
+        void run(Connection conn) throws SQLException {
+            result = work.run(conn);
+        }
+
+        void complete() {
+            if (failure != null)
+                future.completeExceptionally(failure);
+            else
+                future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.inpuzah.stafftools.managers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Coalescing sender for staff-channel notifications.
+ *
+ * Notifications go into a bounded queue. The first one to arrive opens a window;
+ * when it closes, everything queued is joined into as few Discord messages as fit
+ * the 2000 character limit and sent from a single daemon thread, no faster than
+ * {@code minIntervalMs} apart. When the queue is full new notifications are dropped
+ * and the next message carries a count of what was lost.
+ *
+ * The JDA object is only touched through {@code MethodHandle}s resolved once per
+ * class and cached, so any object exposing {@code getTextChannelById(String)} whose
+ * channel has {@code sendMessage(CharSequence)} returning something with
+ * {@code queue()} works, including a small fake passed in as the JDA supplier.
+ */
+public class DiscordDispatcher {
+
+    static final int MAX_MESSAGE_LENGTH = 2000;
+    private static final String SEPARATOR = "\n\n";
+
+    private static final MethodType GET_CHANNEL_TYPE = MethodType.methodType(Object.class, Object.class, String.class);
+    private static final MethodType SEND_TYPE = MethodType.methodType(Object.class, Object.class, String.class);
+    private static final MethodType QUEUE_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private final Logger logger;
+    private final Supplier<Object> jdaSupplier;
+    private final String channelId;
+    private final long windowMs;
+    private final long minIntervalMs;
+
+    private final BlockingQueue<String> queue;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private volatile boolean closed;
+
+    // Resolved lazily, reused until the receiver class changes (JDA reconnect, reload).
+    private HandleCache getChannel;
+    private HandleCache sendMessage;
+    private HandleCache queueAction;
+    private long lastSendMillis;
+    private long droppedSinceLastSend;
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    public DiscordDispatcher(Logger logger, Supplier<Object> jdaSupplier, String channelId, int capacity,
+            long windowMs, long minIntervalMs) {
+        this.logger = logger;
+        this.jdaSupplier = jdaSupplier;
+        this.channelId = channelId;
+        this.windowMs = Math.max(0L, windowMs);
+        this.minIntervalMs = Math.max(0L, minIntervalMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "StaffTools-Discord");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Queues a notification. Never blocks; returns false if it was dropped. */
+    public boolean submit(String text) {
+        if (closed || text == null || text.isEmpty()) {
+            return false;
+        }
+        if (!queue.offer(text)) {
+            long d = dropped.incrementAndGet();
+            if (d == 1 || d % 50 == 0) {
+                logger.warning("[Discord] Notification queue full, dropped " + d + " so far.");
+            }
+            return false;
+        }
+        submitted.incrementAndGet();
+        scheduleFlush(windowMs);
+        return true;
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            flushScheduled.set(false);
+        }
+    }
+
+    // Runs on the dispatcher thread only.
+    private void flush() {
+        flushScheduled.set(false);
+        long wait = lastSendMillis + minIntervalMs - System.currentTimeMillis();
+        if (wait > 0 && !closed) {
+            scheduleFlush(wait);
+            return;
+        }
+
+        List<String> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        long droppedTotal = dropped.get();
+        long newlyDropped = droppedTotal - droppedSinceLastSend;
+        if (pending.isEmpty() && newlyDropped == 0) {
+            return;
+        }
+        if (newlyDropped > 0) {
+            pending.add("_(" + newlyDropped + " notification(s) dropped under load)_");
+        }
+
+        Object channel = resolveChannel();
+        if (channel == null) {
+            logger.warning("[Discord] Staff channel not found or invalid; discarded " + pending.size()
+                    + " notification(s).");
+            droppedSinceLastSend = droppedTotal;
+            return;
+        }
+
+        // Pack into as few messages as possible, one per rate-limit slot.
+        List<String> messages = pack(pending);
+        send(channel, messages.get(0));
+        droppedSinceLastSend = droppedTotal;
+        if (messages.size() > 1) {
+            // Put the overflow back at the front of the line for the next slot.
+            List<String> rest = new ArrayList<>(messages.subList(1, messages.size()));
+            queue.drainTo(rest);
+            for (String m : rest) {
+                if (!queue.offer(m))
+                    dropped.incrementAndGet();
+            }
+        }
+        if (!queue.isEmpty()) {
+            scheduleFlush(minIntervalMs);
+        }
+    }
+
+    static List<String> pack(List<String> parts) {
+        List<String> out = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String part : parts) {
+            String p = part.length() > MAX_MESSAGE_LENGTH ? part.substring(0, MAX_MESSAGE_LENGTH - 3) + "..." : part;
+            if (current.length() > 0 && current.length() + SEPARATOR.length() + p.length() > MAX_MESSAGE_LENGTH) {
+                out.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0)
+                current.append(SEPARATOR);
+            current.append(p);
+        }
+        if (current.length() > 0)
+            out.add(current.toString());
+        return out;
+    }
+
+    private Object resolveChannel() {
+        if (channelId == null || channelId.isEmpty()) {
+            return null;
+        }
+        try {
+            Object jda = jdaSupplier.get();
+            if (jda == null)
+                return null;
+            if (getChannel == null || getChannel.owner != jda.getClass()) {
+                getChannel = HandleCache.resolve(jda.getClass(), "getTextChannelById", String.class, GET_CHANNEL_TYPE);
+            }
+            return (Object) getChannel.handle.invokeExact(jda, channelId);
+        } catch (Throwable t) {
+            logger.warning("[Discord] Failed to get staff channel: " + t.getMessage());
+            getChannel = null;
+            return null;
+        }
+    }
+
+    private void send(Object channel, String content) {
+        try {
+            if (sendMessage == null || sendMessage.owner != channel.getClass()) {
+                sendMessage = HandleCache.resolve(channel.getClass(), "sendMessage", CharSequence.class, SEND_TYPE);
+            }
+            Object action = (Object) sendMessage.handle.invokeExact(channel, content);
+            if (queueAction == null || queueAction.owner != action.getClass()) {
+                queueAction = HandleCache.resolve(action.getClass(), "queue", null, QUEUE_TYPE);
+            }
+            queueAction.handle.invokeExact(action);
+            lastSendMillis = System.currentTimeMillis();
+            sent.incrementAndGet();
+        } catch (Throwable t) {
+            logger.warning("[Discord] Failed to send Discord message: " + t.getMessage());
+            sendMessage = null;
+            queueAction = null;
+        }
+    }
+
+    /** Sends whatever is queued (ignoring the window) and stops the thread. */
+    public void shutdown() {
+        closed = true;
+        executor.execute(() -> {
+            lastSendMillis = 0L;
+            flush();
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /** A method handle plus the receiver class it was resolved against. */
+    private static final class HandleCache {
+        final Class<?> owner;
+        final MethodHandle handle;
+
+        private HandleCache(Class<?> owner, MethodHandle handle) {
+            this.owner = owner;
+            this.handle = handle;
+        }
+
+        /**
+         * Finds a public method by name taking one argument assignable from
+         * {@code argType} (or no arguments when null), preferring the declaration on a
+         * public type so implementation classes hidden behind interfaces still work.
+         */
+        static HandleCache resolve(Class<?> owner, String name, Class<?> argType, MethodType type)
+                throws ReflectiveOperationException {
+            Method found = null;
+            for (Method m : owner.getMethods()) {
+                if (!m.getName().equals(name))
+                    continue;
+                Class<?>[] params = m.getParameterTypes();
+                boolean matches = argType == null
+                        ? params.length == 0
+                        : params.length == 1 && (params[0] == String.class || params[0].isAssignableFrom(argType));
+                if (!matches)
+                    continue;
+                found = publicDeclaration(owner, m);
+                break;
+            }
+            if (found == null) {
+                throw new NoSuchMethodException(owner.getName() + "#" + name);
+            }
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(found);
+            return new HandleCache(owner, handle.asType(type));
+        }
+
+        private static Method publicDeclaration(Class<?> owner, Method m) {
+            if (Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+                return m;
+            }
+            for (Class<?> iface : allInterfaces(owner)) {
+                try {
+                    Method candidate = iface.getMethod(m.getName(), m.getParameterTypes());
+                    if (Modifier.isPublic(iface.getModifiers()))
+                        return candidate;
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            return m;
+        }
+
+        private static List<Class<?>> allInterfaces(Class<?> type) {
+            List<Class<?>> out = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Class<?> iface : c.getInterfaces()) {
+                    collect(iface, out);
+                }
+            }
+            return out;
+        }
+
+        private static void collect(Class<?> iface, List<Class<?>> out) {
+            if (out.contains(iface))
+                return;
+            out.add(iface);
+            for (Class<?> parent : iface.getInterfaces()) {
+                collect(parent, out);
+            }
+        }
+    }
+}
@@ -6,12 +6,16 @@ import com.inpuzah.stafftools.utils.TimeUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 /**
  * Discord integration manager - interfaces with DiscordRelay plugin (optional).
  * This version avoids compile-time dependency on DiscordRelay by using
- * reflection.
+ * reflection. Messages are handed to a {@link DiscordDispatcher}, which batches
+ * them and sends from its own thread.
  */
 public class DiscordManager {
 
@@ -19,8 +23,15 @@ public class DiscordManager {
     private Plugin discordRelay;
     private Object bridge; // was DiscordBridge
     private boolean enabled;
-    private Method getJdaMethod;
+    private MethodHandle getJda; // bound to bridge
     private String staffChannelId;
+    private volatile DiscordDispatcher dispatcher;
+
+    // Event toggles, read once per reload
+    private boolean punishmentEvents;
+    private boolean reportEvents;
+    private boolean appealEvents;
+    private boolean buildBanEvents;
 
     public DiscordManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
@@ -30,11 +41,16 @@ public class DiscordManager {
     /** Reloads config values and (re)binds to DiscordRelay if enabled. */
     public void reload() {
         this.enabled = plugin.getConfig().getBoolean("discord.enabled", false);
+        this.punishmentEvents = plugin.getConfig().getBoolean("discord.events.punishment", true);
+        this.reportEvents = plugin.getConfig().getBoolean("discord.events.report", true);
+        this.appealEvents = plugin.getConfig().getBoolean("discord.events.appeal", true);
+        this.buildBanEvents = plugin.getConfig().getBoolean("discord.events.buildban", true);
 
-        // Clear any previous reflective handles.
+        // Flush and stop the previous dispatcher, then clear reflective handles.
+        shutdown();
         this.discordRelay = null;
         this.bridge = null;
-        this.getJdaMethod = null;
+        this.getJda = null;
         this.staffChannelId = null;
 
         if (enabled) {
@@ -56,11 +72,16 @@ public class DiscordManager {
             Method getDiscordMethod = discordRelay.getClass().getDeclaredMethod("getDiscord");
             bridge = getDiscordMethod.invoke(discordRelay);
 
-            // Obtain JDA from the bridge via reflection
-            Class<?> bridgeClass = bridge.getClass();
-            getJdaMethod = bridgeClass.getDeclaredMethod("getJda");
+            // Obtain JDA from the bridge via a handle resolved once per reload
+            Method getJdaMethod = bridge.getClass().getDeclaredMethod("getJda");
+            getJda = MethodHandles.publicLookup().unreflect(getJdaMethod).bindTo(bridge)
+                    .asType(MethodType.methodType(Object.class));
 
             staffChannelId = plugin.getConfig().getString("discord.channels.staff-notifications");
+            dispatcher = new DiscordDispatcher(plugin.getLogger(), this::currentJda, staffChannelId,
+                    plugin.getConfig().getInt("discord.dispatch.queue-capacity", 200),
+                    plugin.getConfig().getLong("discord.dispatch.window-ms", 1500L),
+                    plugin.getConfig().getLong("discord.dispatch.min-interval-ms", 1000L));
             plugin.getLogger().info("Discord integration enabled with DiscordRelay (reflective).");
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to setup Discord integration: " + e.getMessage());
@@ -68,141 +89,108 @@ public class DiscordManager {
         }
     }
 
-    private Object getStaffChannel() {
-        if (!enabled || bridge == null || staffChannelId == null || staffChannelId.isEmpty()) {
+    private Object currentJda() {
+        MethodHandle handle = getJda;
+        if (handle == null)
             return null;
-        }
-
         try {
-            Object jda = getJdaMethod.invoke(bridge);
-            Method getTextChannelById = jda.getClass().getMethod("getTextChannelById", String.class);
-            return getTextChannelById.invoke(jda, staffChannelId);
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get staff channel: " + e.getMessage());
+            return (Object) handle.invokeExact();
+        } catch (Throwable t) {
+            plugin.getLogger().warning("Failed to get JDA from DiscordRelay: " + t.getMessage());
             return null;
         }
     }
 
-    private void sendPlain(Object channel, String content) {
-        try {
-            // TextChannel#sendMessage(String) -> MessageAction, then #queue()
-            Method sendMessage = null;
-            for (Method m : channel.getClass().getMethods()) {
-                if (!m.getName().equals("sendMessage"))
-                    continue;
-                Class<?>[] params = m.getParameterTypes();
-                if (params.length == 1
-                        && (params[0] == String.class || CharSequence.class.isAssignableFrom(params[0]))) {
-                    sendMessage = m;
-                    break;
-                }
-            }
-            if (sendMessage == null)
-                return;
-
-            Object action = sendMessage.invoke(channel, content);
-            Method queue = action.getClass().getMethod("queue");
-            queue.invoke(action);
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to send Discord message: " + e.getMessage());
+    private void submit(String text) {
+        DiscordDispatcher d = dispatcher;
+        if (d != null) {
+            d.submit(text);
         }
     }
 
+    /** Sends anything still queued and stops the dispatcher thread. */
+    public void shutdown() {
+        DiscordDispatcher d = dispatcher;
+        dispatcher = null;
+        if (d != null) {
+            d.shutdown();
+        }
+    }
+
+    /** Current dispatcher (null when disabled), for queue stats. */
+    public DiscordDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     /** Send punishment notification to Discord */
     public void sendPunishmentNotification(Punishment punishment) {
-        if (!enabled || !plugin.getConfig().getBoolean("discord.events.punishment", true)) {
+        if (!enabled || !punishmentEvents) {
             plugin.getLogger().info("[Discord] Punishment notification skipped (enabled=" + enabled + ")");
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getStaffChannel();
-            if (channel == null) {
-                plugin.getLogger().warning("[Discord] Staff channel not found or invalid");
-                return;
-            }
-
-            String text = "**Punishment Issued**\n"
-                    + "Player: **" + punishment.getPlayerName() + "**\n"
-                    + "Type: **" + punishment.getType().name() + "**\n"
-                    + "Duration: **"
-                    + (punishment.isPermanent() ? "Permanent" : TimeUtil.formatDuration(punishment.getDuration()))
-                    + "**\n"
-                    + "Reason: " + punishment.getReason() + "\n"
-                    + "Staff: **" + punishment.getStaffName() + "**\n"
-                    + "ID: #" + punishment.getId();
-
-            sendPlain(channel, text);
-            plugin.getLogger().info("[Discord] Sent punishment notification for " + punishment.getPlayerName());
-        });
+        String text = "**Punishment Issued**\n"
+                + "Player: **" + punishment.getPlayerName() + "**\n"
+                + "Type: **" + punishment.getType().name() + "**\n"
+                + "Duration: **"
+                + (punishment.isPermanent() ? "Permanent" : TimeUtil.formatDuration(punishment.getDuration()))
+                + "**\n"
+                + "Reason: " + punishment.getReason() + "\n"
+                + "Staff: **" + punishment.getStaffName() + "**\n"
+                + "ID: #" + punishment.getId();
+
+        submit(text);
     }
 
     /** Send report notification to Discord */
     public void sendReportNotification(Report report) {
-        if (!enabled || !plugin.getConfig().getBoolean("discord.events.report", true)) {
+        if (!enabled || !reportEvents) {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getStaffChannel();
-            if (channel == null)
-                return;
-
-            String text = "**Player Report**\n"
-                    + "Reported: **" + report.getReportedName() + "**\n"
-                    + "Reporter: **" + report.getReporterName() + "**\n"
-                    + "Status: **" + report.getStatus().name() + "**\n"
-                    + "Reason: " + report.getReason() + "\n"
-                    + "ID: #" + report.getId();
+        String text = "**Player Report**\n"
+                + "Reported: **" + report.getReportedName() + "**\n"
+                + "Reporter: **" + report.getReporterName() + "**\n"
+                + "Status: **" + report.getStatus().name() + "**\n"
+                + (report.getReportCount() > 1 ? "Reports: **" + report.getReportCount() + "**\n" : "")
+                + "Reason: " + report.getReason() + "\n"
+                + "ID: #" + report.getId();
 
-            sendPlain(channel, text);
-        });
+        submit(text);
     }
 
     /** Send appeal notification to Discord */
     public void sendAppealNotification(Appeal appeal, Punishment punishment) {
-        if (!enabled || !plugin.getConfig().getBoolean("discord.events.appeal", true)) {
+        if (!enabled || !appealEvents) {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getStaffChannel();
-            if (channel == null)
-                return;
-
-            String text = "**Punishment Appeal**\n"
-                    + "Player: **" + appeal.getPlayerName() + "**\n"
-                    + "Punishment: **" + punishment.getType().name() + "**\n"
-                    + "Status: **" + appeal.getStatus().name() + "**\n"
-                    + "Original reason: " + punishment.getReason() + "\n"
-                    + "Appeal: " + appeal.getAppealText() + "\n"
-                    + "Appeal ID: #" + appeal.getId() + " | Punishment ID: #" + punishment.getId();
-
-            sendPlain(channel, text);
-        });
+        String text = "**Punishment Appeal**\n"
+                + "Player: **" + appeal.getPlayerName() + "**\n"
+                + "Punishment: **" + punishment.getType().name() + "**\n"
+                + "Status: **" + appeal.getStatus().name() + "**\n"
+                + "Original reason: " + punishment.getReason() + "\n"
+                + "Appeal: " + appeal.getAppealText() + "\n"
+                + "Appeal ID: #" + appeal.getId() + " | Punishment ID: #" + punishment.getId();
+
+        submit(text);
     }
 
     /** Send BuildBan notification (uses BGSU gold by default) */
     public void sendBuildBanNotification(Punishment buildban) {
-        if (!enabled || !plugin.getConfig().getBoolean("discord.events.buildban", true)) {
+        if (!enabled || !buildBanEvents) {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getStaffChannel();
-            if (channel == null)
-                return;
-
-            String text = "**BuildBan Issued**\n"
-                    + "Player: **" + buildban.getPlayerName() + "**\n"
-                    + "Duration: **"
-                    + (buildban.isPermanent() ? "Permanent" : TimeUtil.formatDuration(buildban.getDuration())) + "**\n"
-                    + "Reason: " + buildban.getReason() + "\n"
-                    + "Staff: **" + buildban.getStaffName() + "**\n"
-                    + "ID: #" + buildban.getId();
-
-            sendPlain(channel, text);
-        });
+        String text = "**BuildBan Issued**\n"
+                + "Player: **" + buildban.getPlayerName() + "**\n"
+                + "Duration: **"
+                + (buildban.isPermanent() ? "Permanent" : TimeUtil.formatDuration(buildban.getDuration())) + "**\n"
+                + "Reason: " + buildban.getReason() + "\n"
+                + "Staff: **" + buildban.getStaffName() + "**\n"
+                + "ID: #" + buildban.getId();
+
+        submit(text);
     }
 
     /** Send staff announcement */
@@ -211,17 +199,11 @@ public class DiscordManager {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Object channel = getStaffChannel();
-            if (channel == null)
-                return;
-
-            String text = (isWarning ? "**Staff Warning**\n" : "**Staff Announcement**\n")
-                    + (staffName != null ? ("By: **" + staffName + "**\n") : "")
-                    + message;
+        String text = (isWarning ? "**Staff Warning**\n" : "**Staff Announcement**\n")
+                + (staffName != null ? ("By: **" + staffName + "**\n") : "")
+                + message;
 
-            sendPlain(channel, text);
-        });
+        submit(text);
     }
 
     /** Is Discord integration enabled and usable? */
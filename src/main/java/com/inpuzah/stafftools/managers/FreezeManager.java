@@ -4,6 +4,7 @@ import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Punishment;
 import com.inpuzah.stafftools.database.models.PunishmentType;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import com.inpuzah.stafftools.utils.Placeholders;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -54,6 +55,8 @@ public class FreezeManager {
     // --- UUID-based core API (used by listeners/commands) ---
     public void freezePlayer(UUID playerUuid, UUID staffUuid, String staffName) {
         frozenPlayers.add(playerUuid);
+        plugin.getPresenceIndicators().mark(PresenceIndicators.Kind.FROZEN, playerUuid);
+        refreshChatGate(playerUuid);
         Player player = Bukkit.getPlayer(playerUuid);
         if (player != null && player.isOnline()) sendFreezeMessage(player);
 
@@ -64,6 +67,8 @@ public class FreezeManager {
 
     public void unfreezePlayer(UUID playerUuid, UUID staffUuid, String staffName) {
         frozenPlayers.remove(playerUuid);
+        plugin.getPresenceIndicators().unmark(PresenceIndicators.Kind.FROZEN, playerUuid);
+        refreshChatGate(playerUuid);
         Player player = Bukkit.getPlayer(playerUuid);
         if (player != null && player.isOnline())
             MessageUtil.sendMessage(player, "&a&lYou have been unfrozen!");
@@ -79,6 +84,8 @@ public class FreezeManager {
     public void handleLogout(UUID playerUuid) {
         if (!isFrozen(playerUuid)) return;
         frozenPlayers.remove(playerUuid);
+        plugin.getPresenceIndicators().unmark(PresenceIndicators.Kind.FROZEN, playerUuid);
+        refreshChatGate(playerUuid);
 
         if (plugin.getConfig().getBoolean("freeze.ban-on-logout", true)) {
             Player p = Bukkit.getPlayer(playerUuid);
@@ -95,13 +102,14 @@ public class FreezeManager {
         }
     }
 
+    private void refreshChatGate(UUID playerUuid) {
+        if (plugin.getChatGateManager() != null) plugin.getChatGateManager().refresh(playerUuid);
+    }
+
     private void sendFreezeMessage(Player player) {
         player.sendMessage("");
-        for (String line : plugin.getConfig().getStringList("freeze.freeze-message")) {
-            player.sendMessage(MessageUtil.colorize(
-                    line.replace("{discord-url}", plugin.getConfig().getString("freeze.discord-url", "discord.gg/yourserver"))
-            ));
-        }
+        player.sendMessage(MessageUtil.linesTemplate("freeze.freeze-message").render(Placeholders.DISCORD_URL.of(
+                plugin.getConfig().getString("freeze.discord-url", "discord.gg/yourserver"))));
         player.sendMessage("");
     }
 
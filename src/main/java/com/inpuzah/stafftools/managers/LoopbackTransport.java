@@ -0,0 +1,48 @@
+package com.inpuzah.stafftools.managers;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link PunishmentBus.Transport}: delivers every payload synchronously to
+ * all loopback transports on the same channel in this JVM, including the sender.
+ * For single-server setups, test servers and harnesses that run several buses side
+ * by side.
+ */
+final class LoopbackTransport implements PunishmentBus.Transport {
+
+    private static final Map<String, Set<Consumer<byte[]>>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private Consumer<byte[]> receiver;
+
+    LoopbackTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, k -> new CopyOnWriteArraySet<>()).add(receiver);
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        Set<Consumer<byte[]>> receivers = CHANNELS.get(channel);
+        if (receivers == null)
+            return;
+        for (Consumer<byte[]> r : receivers) {
+            r.accept(payload.clone());
+        }
+    }
+
+    @Override
+    public void close() {
+        Set<Consumer<byte[]>> receivers = CHANNELS.get(channel);
+        if (receivers != null && receiver != null)
+            receivers.remove(receiver);
+    }
+}
@@ -12,10 +12,9 @@ import com.djrapitops.plan.extension.annotation.TabOrder;
 import com.djrapitops.plan.extension.icon.Color;
 import com.djrapitops.plan.extension.icon.Family;
 import com.inpuzah.stafftools.StaffToolsPlugin;
-import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentSummary;
 import com.inpuzah.stafftools.database.models.PunishmentType;
 
-import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
@@ -58,10 +57,18 @@ public final class PlanIntegration implements DataExtension {
         }
     }
 
+    /**
+     * All providers read one cached summary, so a Plan refresh costs at most one
+     * grouped query per player instead of a full history load per provider.
+     */
+    private PunishmentSummary summary(UUID playerUUID) throws InterruptedException, ExecutionException {
+        return plugin.getPunishmentManager().getPlayerSummary(playerUUID).get();
+    }
+
     @NumberProvider(text = "Total Punishments", description = "Total number of punishments received", priority = 100, iconName = "list", iconFamily = Family.SOLID, iconColor = Color.GREY)
     public long totalPunishments(UUID playerUUID) {
         try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().size();
+            return summary(playerUUID).getTotal();
         } catch (InterruptedException | ExecutionException e) {
             return 0;
         }
@@ -70,9 +77,7 @@ public final class PlanIntegration implements DataExtension {
     @NumberProvider(text = "Active Punishments", description = "Number of currently active punishments", priority = 99, iconName = "exclamation-triangle", iconFamily = Family.SOLID, iconColor = Color.RED)
     public long activePunishments(UUID playerUUID) {
         try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(Punishment::isActive)
-                    .count();
+            return summary(playerUUID).getActive();
         } catch (InterruptedException | ExecutionException e) {
             return 0;
         }
@@ -80,54 +85,32 @@ public final class PlanIntegration implements DataExtension {
 
     @NumberProvider(text = "Warnings", description = "Total warnings received", priority = 90, iconName = "exclamation", iconFamily = Family.SOLID, iconColor = Color.AMBER)
     public long totalWarnings(UUID playerUUID) {
-        try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(p -> p.getType() == PunishmentType.WARN)
-                    .count();
-        } catch (InterruptedException | ExecutionException e) {
-            return 0;
-        }
+        return countOf(playerUUID, PunishmentType.WARN);
     }
 
     @NumberProvider(text = "Mutes", description = "Total mutes received", priority = 80, iconName = "volume-mute", iconFamily = Family.SOLID, iconColor = Color.ORANGE)
     public long totalMutes(UUID playerUUID) {
-        try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(p -> p.getType() == PunishmentType.MUTE)
-                    .count();
-        } catch (InterruptedException | ExecutionException e) {
-            return 0;
-        }
+        return countOf(playerUUID, PunishmentType.MUTE);
     }
 
     @NumberProvider(text = "Kicks", description = "Total kicks received", priority = 70, iconName = "door-open", iconFamily = Family.SOLID, iconColor = Color.BLUE)
     public long totalKicks(UUID playerUUID) {
-        try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(p -> p.getType() == PunishmentType.KICK)
-                    .count();
-        } catch (InterruptedException | ExecutionException e) {
-            return 0;
-        }
+        return countOf(playerUUID, PunishmentType.KICK);
     }
 
     @NumberProvider(text = "Bans", description = "Total bans received", priority = 60, iconName = "ban", iconFamily = Family.SOLID, iconColor = Color.RED)
     public long totalBans(UUID playerUUID) {
-        try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(p -> p.getType() == PunishmentType.BAN)
-                    .count();
-        } catch (InterruptedException | ExecutionException e) {
-            return 0;
-        }
+        return countOf(playerUUID, PunishmentType.BAN);
     }
 
     @NumberProvider(text = "Build Bans", description = "Total build bans received", priority = 50, iconName = "hammer", iconFamily = Family.SOLID, iconColor = Color.BROWN)
     public long totalBuildBans(UUID playerUUID) {
+        return countOf(playerUUID, PunishmentType.BUILDBAN);
+    }
+
+    private long countOf(UUID playerUUID, PunishmentType type) {
         try {
-            return plugin.getPunishmentManager().getPlayerHistory(playerUUID).get().stream()
-                    .filter(p -> p.getType() == PunishmentType.BUILDBAN)
-                    .count();
+            return summary(playerUUID).getCount(type);
         } catch (InterruptedException | ExecutionException e) {
             return 0;
         }
@@ -141,13 +124,11 @@ public final class PlanIntegration implements DataExtension {
     @StringProvider(text = "Last Punishment", description = "Most recent punishment reason", priority = 30, iconName = "history", iconFamily = Family.SOLID, iconColor = Color.GREY)
     public String lastPunishment(UUID playerUUID) {
         try {
-            List<Punishment> history = plugin.getPunishmentManager().getPlayerHistory(playerUUID).get();
-            if (history.isEmpty()) {
+            PunishmentSummary summary = summary(playerUUID);
+            if (summary.getLatestType() == null) {
                 return "None";
             }
-
-            Punishment latest = history.get(history.size() - 1);
-            return latest.getType().name() + ": " + latest.getReason();
+            return summary.getLatestType().name() + ": " + summary.getLatestReason();
         } catch (InterruptedException | ExecutionException e) {
             return "Error loading";
         }
@@ -0,0 +1,122 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * {@link PunishmentBus.Transport} over the proxy's BungeeCord channel ("Forward" to
+ * ALL servers). Velocity needs {@code bungee-plugin-message-channel = true}.
+ *
+ * Plugin messages ride on a player connection, so a server with nobody online can
+ * neither send nor receive. Outgoing messages are held (bounded) until someone
+ * joins; incoming ones sent while this server was empty are lost.
+ */
+final class PluginMessageTransport implements PunishmentBus.Transport, PluginMessageListener, Listener {
+
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "StaffToolsPunish";
+    private static final int MAX_PENDING = 256;
+
+    private final StaffToolsPlugin plugin;
+    private final Deque<byte[]> pending = new ArrayDeque<>(); // main thread only
+    private Consumer<byte[]> receiver;
+
+    PluginMessageTransport(StaffToolsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        Bukkit.getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        Bukkit.getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        byte[] message = forward(payload);
+        if (Bukkit.isPrimaryThread()) {
+            sendOrHold(message);
+        } else {
+            Bukkit.getScheduler().runTask(plugin, () -> sendOrHold(message));
+        }
+    }
+
+    private void sendOrHold(byte[] message) {
+        Player carrier = Bukkit.getOnlinePlayers().stream().findFirst().orElse(null);
+        if (carrier == null) {
+            if (pending.size() == MAX_PENDING)
+                pending.pollFirst();
+            pending.addLast(message);
+            return;
+        }
+        carrier.sendPluginMessage(plugin, CHANNEL, message);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        if (pending.isEmpty())
+            return;
+        // The connection is not ready for plugin messages during the join event itself.
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            while (!pending.isEmpty() && event.getPlayer().isOnline()) {
+                event.getPlayer().sendPluginMessage(plugin, CHANNEL, pending.pollFirst());
+            }
+        }, 5L);
+    }
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        if (!CHANNEL.equals(channel))
+            return;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+            if (!SUBCHANNEL.equals(in.readUTF()))
+                return;
+            byte[] payload = new byte[in.readUnsignedShort()];
+            in.readFully(payload);
+            receiver.accept(payload);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Sync] Malformed plugin message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        Bukkit.getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL, this);
+        Bukkit.getMessenger().unregisterOutgoingPluginChannel(plugin, CHANNEL);
+        HandlerList.unregisterAll(this);
+        pending.clear();
+    }
+
+    private static byte[] forward(byte[] payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUBCHANNEL);
+            out.writeShort(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import com.inpuzah.stafftools.utils.MessageUtil;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Action-bar status shown to players while they are frozen, vanished or in staff
+ * mode; one message per player, the first of those that applies.
+ *
+ * Each message is deserialized once per reload. Players are spread over
+ * {@link #PERIOD_TICKS} buckets by UUID and one bucket is served per tick, so
+ * everyone still gets a refresh every second but the packets are spread out
+ * instead of all leaving in the same tick. Marking and unmarking is thread-safe.
+ */
+public final class PresenceIndicators {
+
+    /** In priority order. */
+    public enum Kind {
+        FROZEN("freeze", false, "&c&lFROZEN &7- do not log out"),
+        VANISH("vanish", true, "&7You are &bvanished&7!"),
+        STAFF_MODE("staff-mode", false, "&7You are in &cstaff mode");
+
+        private final String section;
+        private final boolean enabledByDefault;
+        private final String defaultMessage;
+
+        Kind(String section, boolean enabledByDefault, String defaultMessage) {
+            this.section = section;
+            this.enabledByDefault = enabledByDefault;
+            this.defaultMessage = defaultMessage;
+        }
+
+        private int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    private static final int PERIOD_TICKS = 20;
+    private static final Kind[] KINDS = Kind.values();
+
+    private final StaffToolsPlugin plugin;
+    // Player -> bit set of Kind; a player is in their bucket exactly while this is non-zero
+    private final Map<UUID, Integer> marks = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<UUID>[] buckets = new Set[PERIOD_TICKS];
+    // Rendered messages; a kind without one has its action bar disabled
+    private volatile Map<Kind, Component> messages = new EnumMap<>(Kind.class);
+
+    private BukkitTask task;
+    private int tick;
+
+    public PresenceIndicators(StaffToolsPlugin plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < PERIOD_TICKS; i++) {
+            buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+        reload();
+    }
+
+    public void reload() {
+        Map<Kind, Component> rendered = new EnumMap<>(Kind.class);
+        for (Kind kind : KINDS) {
+            if (plugin.getConfig().getBoolean(kind.section + ".action-bar-enabled", kind.enabledByDefault)) {
+                rendered.put(kind, MessageUtil.component(
+                        plugin.getConfig().getString(kind.section + ".action-bar-message", kind.defaultMessage)));
+            }
+        }
+        messages = rendered;
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (!rendered.isEmpty()) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::sendBucket, 1L, 1L);
+        }
+    }
+
+    public void mark(Kind kind, UUID uuid) {
+        marks.compute(uuid, (k, bits) -> {
+            buckets[bucket(k)].add(k);
+            return bits == null ? kind.bit() : bits | kind.bit();
+        });
+    }
+
+    public void unmark(Kind kind, UUID uuid) {
+        marks.computeIfPresent(uuid, (k, bits) -> {
+            int left = bits & ~kind.bit();
+            if (left != 0)
+                return left;
+            buckets[bucket(k)].remove(k);
+            return null;
+        });
+    }
+
+    private void sendBucket() {
+        Set<UUID> bucket = buckets[tick];
+        tick = (tick + 1) % PERIOD_TICKS;
+        if (bucket.isEmpty())
+            return;
+        Map<Kind, Component> rendered = messages;
+        for (UUID uuid : bucket) {
+            Component message = messageFor(marks.getOrDefault(uuid, 0), rendered);
+            if (message == null)
+                continue;
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline())
+                player.sendActionBar(message);
+        }
+    }
+
+    private static Component messageFor(int bits, Map<Kind, Component> rendered) {
+        for (Kind kind : KINDS) {
+            if ((bits & kind.bit()) != 0 && rendered.containsKey(kind))
+                return rendered.get(kind);
+        }
+        return null;
+    }
+
+    private static int bucket(UUID uuid) {
+        return Math.floorMod(uuid.hashCode(), PERIOD_TICKS);
+    }
+}
@@ -0,0 +1,192 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Propagates punishment issue, removal and expiry to the other servers sharing the
+ * database, so their active-punishment caches are updated in place instead of only
+ * at startup.
+ *
+ * Each change is one small message carrying the punishment's cache fields (no
+ * database round trip on the receiving side). Messages from this server are
+ * ignored on receipt, so a transport may echo them back. Delivery is best effort;
+ * a server that misses messages (for example while it had no players to carry plugin
+ * messages) converges on restart.
+ */
+public final class PunishmentBus {
+
+    public enum Kind {
+        ISSUED, REMOVED, EXPIRED
+    }
+
+    /** A change made on another server. */
+    public record Event(Kind kind, Punishment punishment) {
+    }
+
+    /** Moves opaque payloads between servers. Implementations must be thread-safe. */
+    public interface Transport {
+        void start(Consumer<byte[]> receiver);
+
+        void send(byte[] payload);
+
+        void close();
+    }
+
+    private static final int VERSION = 1;
+
+    private final StaffToolsPlugin plugin;
+    private final Transport transport;
+    private final UUID nodeId = UUID.randomUUID();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private PunishmentBus(StaffToolsPlugin plugin, Transport transport) {
+        this.plugin = plugin;
+        this.transport = transport;
+    }
+
+    /**
+     * Builds the bus from {@code network.sync}. Returns a bus that publishes nothing
+     * when sync is disabled.
+     */
+    static PunishmentBus create(StaffToolsPlugin plugin, Consumer<Event> listener) {
+        if (!plugin.getConfig().getBoolean("network.sync.enabled", false)) {
+            return new PunishmentBus(plugin, null);
+        }
+        String name = plugin.getConfig().getString("network.sync.transport", "plugin-message");
+        Transport transport = switch (name.toLowerCase()) {
+            case "loopback" -> new LoopbackTransport(plugin.getConfig().getString("network.sync.channel", "default"));
+            case "plugin-message" -> new PluginMessageTransport(plugin);
+            default -> {
+                plugin.getLogger().warning("Unknown network.sync.transport '" + name
+                        + "', falling back to plugin-message");
+                yield new PluginMessageTransport(plugin);
+            }
+        };
+        PunishmentBus bus = new PunishmentBus(plugin, transport);
+        transport.start(payload -> bus.receive(payload, listener));
+        plugin.getLogger().info("[Sync] Punishment sync enabled (" + name + ", node " + bus.nodeId + ")");
+        return bus;
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    public void publish(Kind kind, Punishment punishment) {
+        if (transport == null)
+            return;
+        try {
+            transport.send(encode(kind, punishment));
+            published.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("[Sync] Failed to publish " + kind + " #" + punishment.getId() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private void receive(byte[] payload, Consumer<Event> listener) {
+        Event event;
+        try {
+            event = decode(payload);
+        } catch (IOException | RuntimeException e) {
+            rejected.incrementAndGet();
+            plugin.getLogger().warning("[Sync] Dropped unreadable message: " + e.getMessage());
+            return;
+        }
+        if (event == null)
+            return; // our own, echoed back
+        received.incrementAndGet();
+        listener.accept(event);
+    }
+
+    public void close() {
+        if (transport != null)
+            transport.close();
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    // ----- Wire format -----
+
+    private byte[] encode(Kind kind, Punishment p) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(kind.ordinal());
+            writeUuid(out, nodeId);
+            out.writeInt(p.getId());
+            out.writeByte(p.getType().getCode());
+            writeUuid(out, p.getPlayerUuid());
+            out.writeUTF(p.getPlayerName());
+            if (kind == Kind.ISSUED) {
+                writeUuid(out, p.getStaffUuid());
+                out.writeUTF(p.getStaffName());
+                out.writeUTF(p.getReason());
+                out.writeLong(p.getDuration());
+                out.writeLong(p.getTimestamp());
+                out.writeLong(p.getExpiresAt() == null ? -1L : p.getExpiresAt());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private Event decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("unsupported version " + version);
+        Kind kind = Kind.values()[in.readUnsignedByte()];
+        if (nodeId.equals(readUuid(in)))
+            return null;
+        int id = in.readInt();
+        PunishmentType type = PunishmentType.fromCode(in.readUnsignedByte());
+        UUID player = readUuid(in);
+        String playerName = in.readUTF();
+        if (kind != Kind.ISSUED) {
+            return new Event(kind, new Punishment(id, player, playerName, null, null, type, null, 0L, 0L, null,
+                    false, null, null, null, null, null));
+        }
+        UUID staff = readUuid(in);
+        String staffName = in.readUTF();
+        String reason = in.readUTF();
+        long duration = in.readLong();
+        long timestamp = in.readLong();
+        long expiresAt = in.readLong();
+        return new Event(kind, new Punishment(id, player, playerName, staff, staffName, type, reason, duration,
+                timestamp, expiresAt < 0 ? null : expiresAt, ActivePunishmentIndex.isIndexed(type),
+                null, null, null, null, null));
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
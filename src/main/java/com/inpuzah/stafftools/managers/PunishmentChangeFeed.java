@@ -0,0 +1,196 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache sync for servers sharing a database without a message bus: polls
+ * {@code punishments} for rows whose {@code updated_at} moved past a cursor and hands
+ * each BAN, MUTE or BUILDBAN row to the same handler {@link PunishmentBus} uses, as
+ * ISSUED (still active), REMOVED or EXPIRED.
+ *
+ * Each poll is one range query on {@code idx_punishments_updated}. The cursor trails
+ * the clock by {@code overlap-ms}, so rows committed late or stamped by a server with
+ * a slightly slow clock are still seen; rows in that window are read again on the
+ * next poll, which the handler ignores because it applies row state, not history.
+ * The interval drops to {@code min-interval-ms} after a poll that changed something
+ * and doubles up to {@code max-interval-ms} while nothing does.
+ */
+public final class PunishmentChangeFeed {
+
+    private static final String QUERY = "SELECT id, player_uuid, player_name, staff_uuid, staff_name, type, reason, "
+            + "duration, timestamp, expires_at, active, removed_at, updated_at FROM punishments "
+            + "WHERE updated_at > ? OR (updated_at = ? AND id > ?) ORDER BY updated_at, id LIMIT ?";
+
+    private final StaffToolsPlugin plugin;
+    private final RowCodec codec;
+    private final ActivePunishmentIndex index;
+    private final Consumer<PunishmentBus.Event> handler;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final long overlapMs;
+    private final int batchSize;
+
+    // Only touched by the poll chain, which never runs twice at once.
+    private long cursorTime;
+    private int cursorId;
+    private long intervalMs;
+
+    private volatile boolean stopped;
+    private volatile BukkitTask next;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    record Page(List<PunishmentBus.Event> events, int rows, long lastTime, int lastId) {
+    }
+
+    PunishmentChangeFeed(StaffToolsPlugin plugin, ActivePunishmentIndex index, Consumer<PunishmentBus.Event> handler) {
+        this.plugin = plugin;
+        this.codec = plugin.getDatabaseManager().getCodec();
+        this.index = index;
+        this.handler = handler;
+        this.minIntervalMs = Math.max(250L, plugin.getConfig().getLong("network.sync.poll.min-interval-ms", 1000L));
+        this.maxIntervalMs = Math.max(minIntervalMs,
+                plugin.getConfig().getLong("network.sync.poll.max-interval-ms", 10000L));
+        this.overlapMs = Math.max(0L, plugin.getConfig().getLong("network.sync.poll.overlap-ms", 5000L));
+        this.batchSize = Math.max(50, plugin.getConfig().getInt("network.sync.poll.batch-size", 500));
+        this.intervalMs = minIntervalMs;
+        // Anything older is covered by the warm-up, which starts right after this.
+        this.cursorTime = System.currentTimeMillis() - overlapMs;
+    }
+
+    void start() {
+        schedule(minIntervalMs);
+    }
+
+    void stop() {
+        stopped = true;
+        BukkitTask task = next;
+        if (task != null)
+            task.cancel();
+    }
+
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    private void schedule(long delayMs) {
+        if (stopped)
+            return;
+        next = Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::poll, Math.max(1L, delayMs / 50L));
+    }
+
+    private void poll() {
+        if (stopped)
+            return;
+        long fromTime = cursorTime;
+        int fromId = cursorId;
+        CompletableFuture<Page> read = plugin.getDatabaseManager()
+                .read(conn -> readPage(conn, codec, fromTime, fromId, batchSize));
+        read.whenComplete((page, err) -> {
+            polls.incrementAndGet();
+            if (err != null) {
+                plugin.getLogger().warning("[Sync] Punishment poll failed: " + DatabaseManager.rootMessage(err));
+                schedule(maxIntervalMs);
+                return;
+            }
+            rowsRead.addAndGet(page.rows());
+            int changed = 0;
+            for (PunishmentBus.Event event : page.events()) {
+                try {
+                    if (applies(event))
+                        changed++;
+                    handler.accept(event);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().warning("[Sync] Failed to apply punishment #" + event.punishment().getId()
+                            + ": " + e.getMessage());
+                }
+            }
+            boolean full = page.rows() == batchSize;
+            if (full) {
+                // More waiting: continue exactly after the last row, right away.
+                cursorTime = page.lastTime();
+                cursorId = page.lastId();
+            } else {
+                long trailing = System.currentTimeMillis() - overlapMs;
+                if (page.rows() > 0 && page.lastTime() < trailing) {
+                    cursorTime = page.lastTime();
+                    cursorId = page.lastId();
+                } else if (trailing > cursorTime) {
+                    cursorTime = trailing;
+                    cursorId = 0;
+                }
+            }
+            intervalMs = full || changed > 0 ? minIntervalMs : Math.min(maxIntervalMs, intervalMs * 2);
+            schedule(full ? 0L : intervalMs);
+        });
+    }
+
+    /** Whether the event changes this server's cache, i.e. is not a re-read of a known state. */
+    private boolean applies(PunishmentBus.Event event) {
+        Punishment p = event.punishment();
+        Punishment cached = index.get(p.getPlayerUuid(), p.getType());
+        if (event.kind() == PunishmentBus.Kind.ISSUED)
+            return cached == null || cached.getId() < p.getId();
+        return cached != null && cached.getId() == p.getId();
+    }
+
+    /** One poll's query: up to {@code batchSize} rows changed after the cursor. */
+    static Page readPage(Connection conn, RowCodec codec, long fromTime, int fromId, int batchSize)
+            throws SQLException {
+        List<PunishmentBus.Event> events = new ArrayList<>();
+        int rows = 0;
+        long lastTime = fromTime;
+        int lastId = fromId;
+        try (PreparedStatement ps = conn.prepareStatement(QUERY)) {
+            ps.setLong(1, fromTime);
+            ps.setLong(2, fromTime);
+            ps.setInt(3, fromId);
+            ps.setInt(4, batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    lastTime = rs.getLong("updated_at");
+                    lastId = rs.getInt("id");
+                    PunishmentType type = codec.getType(rs, "type");
+                    if (!ActivePunishmentIndex.isIndexed(type))
+                        continue;
+                    Punishment p = codec.activePunishment(rs);
+                    PunishmentBus.Kind kind;
+                    if (rs.getBoolean("active")) {
+                        if (p.isExpired())
+                            continue; // already over, nothing to cache
+                        kind = PunishmentBus.Kind.ISSUED;
+                    } else {
+                        rs.getLong("removed_at");
+                        kind = rs.wasNull() ? PunishmentBus.Kind.EXPIRED : PunishmentBus.Kind.REMOVED;
+                    }
+                    events.add(new PunishmentBus.Event(kind, p));
+                }
+            }
+        }
+        return new Page(events, rows, lastTime, lastId);
+    }
+}
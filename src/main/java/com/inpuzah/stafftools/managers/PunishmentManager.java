@@ -2,9 +2,13 @@ package com.inpuzah.stafftools.managers;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentHistoryPage;
+import com.inpuzah.stafftools.database.models.PunishmentSummary;
 import com.inpuzah.stafftools.database.models.PunishmentType;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import com.inpuzah.stafftools.utils.Placeholders;
 import com.inpuzah.stafftools.utils.TimeUtil;
+import net.kyori.adventure.text.Component;
 import org.bukkit.BanList;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -18,75 +22,251 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 @SuppressWarnings("deprecation")
 public class PunishmentManager {
 
     private final StaffToolsPlugin plugin;
     private final ExecutorService db;
-    private final Map<UUID, Punishment> activeMutes = new ConcurrentHashMap<>();
-    private final Map<UUID, Punishment> activeBans = new ConcurrentHashMap<>();
+    private final RowCodec codec;
+    private final ActivePunishmentIndex activeIndex = new ActivePunishmentIndex();
+
+    // Only the columns the in-memory cache needs (ban screen, mute/buildban messages).
+    private static final String ACTIVE_COLUMNS = "id, player_uuid, player_name, staff_uuid, staff_name, type, "
+            + "reason, duration, timestamp, expires_at";
+
+    private final PunishmentSummaryCache summaryCache;
+    private final CompletableFuture<Void> ready;
+    // Rows deactivated while the warm-up was still reading; keeps them from being re-added.
+    private final Set<Integer> removedDuringWarmup = ConcurrentHashMap.newKeySet();
+    private final PunishmentBus bus;
+    private final PunishmentChangeFeed changeFeed;
+    // Ids that ended here lately (id -> when), so a late ISSUED from the bus or the
+    // change feed (read before the removal committed) cannot bring them back.
+    private final Map<Integer, Long> recentlyEnded = new ConcurrentHashMap<>();
+    private static final long RECENTLY_ENDED_MS = 60_000L;
 
     public PunishmentManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
         this.db = plugin.getDatabaseManager().getExecutor();
-        loadActivePunishmentsSync();
+        this.codec = plugin.getDatabaseManager().getCodec();
+        this.summaryCache = new PunishmentSummaryCache(
+                plugin.getConfig().getInt("plan.summary-cache.max-entries", 500),
+                plugin.getConfig().getLong("plan.summary-cache.ttl-seconds", 120) * 1000L);
+        // Subscribed before the warm-up reads, so changes made elsewhere meanwhile are not missed.
+        this.bus = PunishmentBus.create(plugin, this::applyRemote);
+        this.changeFeed = plugin.getConfig().getBoolean("network.sync.poll.enabled", false)
+                ? new PunishmentChangeFeed(plugin, activeIndex, this::applyRemote)
+                : null;
+        this.ready = warmUpActivePunishments();
+        if (!plugin.getConfig().getBoolean("database.startup.async-warmup", true)) {
+            ready.join();
+        }
         startExpirationTask();
+        if (changeFeed != null) {
+            changeFeed.start();
+        }
     }
 
-    private boolean isActiveType(PunishmentType type) {
-        return type == PunishmentType.MUTE || type == PunishmentType.BAN || type == PunishmentType.BUILDBAN;
+    private static boolean isActiveType(PunishmentType type) {
+        return ActivePunishmentIndex.isIndexed(type);
     }
 
-    private void loadActivePunishmentsSync() {
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-                PreparedStatement stmt = conn.prepareStatement(
-                        "SELECT * FROM punishments WHERE active = 1 AND (type = 'MUTE' OR type = 'BAN')");
-                ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                Punishment p = parsePunishment(rs);
-                if (p.isExpired()) {
-                    expirePunishmentAsync(p.getId());
-                    unsyncVanillaBan(p);
-                    continue;
-                }
-                if (p.getType() == PunishmentType.MUTE) {
-                    activeMutes.put(p.getPlayerUuid(), p);
-                } else if (p.getType() == PunishmentType.BAN) {
-                    activeBans.put(p.getPlayerUuid(), p);
-                }
+    /**
+     * Loads active BAN, MUTE and BUILDBAN rows into the index, one query per type in
+     * parallel on the DB executor. Already-expired rows are indexed as well and get
+     * expired by the expiry task on its first tick.
+     */
+    private CompletableFuture<Void> warmUpActivePunishments() {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] loads = {
+                CompletableFuture.supplyAsync(() -> loadActiveOfType(PunishmentType.BAN), db),
+                CompletableFuture.supplyAsync(() -> loadActiveOfType(PunishmentType.MUTE), db),
+                CompletableFuture.supplyAsync(() -> loadActiveOfType(PunishmentType.BUILDBAN), db)
+        };
+        return CompletableFuture.allOf(loads).whenComplete((v, err) -> {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            removedDuringWarmup.clear();
+            if (err != null) {
+                plugin.getLogger().severe("Failed to load active punishments: " + err.getMessage());
+                return;
             }
+            var debug = plugin.getDebugManager();
+            if (debug != null) {
+                debug.info("Database", "Punishment cache warmed in " + elapsedMs + "ms (bans="
+                        + activeIndex.size(PunishmentType.BAN) + ", mutes=" + activeIndex.size(PunishmentType.MUTE)
+                        + ", buildbans=" + activeIndex.size(PunishmentType.BUILDBAN) + "); "
+                        + (plugin.getConfig().getBoolean("database.startup.async-warmup", true)
+                                ? elapsedMs + "ms kept off the main thread during startup"
+                                : "startup waited for it (async-warmup disabled)"));
+            }
+        });
+    }
+
+    private int loadActiveOfType(PunishmentType type) {
+        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+            return readActiveOfType(conn, codec, type, p -> {
+                if (removedDuringWarmup.contains(p.getId()))
+                    return false;
+                // Never clobber something issued while we were loading.
+                if (activeIndex.get(p.getPlayerUuid(), type) != null)
+                    return false;
+                activeIndex.put(p);
+                return true;
+            });
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to load active punishments: " + e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * The warm-up query: offers every active punishment of {@code type} to {@code load},
+     * which returns whether it took it. Returns how many were taken.
+     */
+    static int readActiveOfType(Connection conn, RowCodec codec, PunishmentType type, Predicate<Punishment> load)
+            throws SQLException {
+        int loaded = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT " + ACTIVE_COLUMNS + " FROM punishments WHERE type = ? AND active = 1")) {
+            codec.setType(stmt, 1, type);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (load.test(codec.activePunishment(rs)))
+                        loaded++;
+                }
+            }
         }
+        return loaded;
+    }
+
+    /** Completes once the active-punishment cache has been loaded. */
+    public CompletableFuture<Void> getReadyFuture() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
     }
 
     private void startExpirationTask() {
-        Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            for (Punishment mute : new ArrayList<>(activeMutes.values())) {
-                if (mute.isExpired()) {
-                    expirePunishmentAsync(mute.getId());
-                    activeMutes.remove(mute.getPlayerUuid());
-                    Player player = Bukkit.getPlayer(mute.getPlayerUuid());
-                    if (player != null && player.isOnline()) {
-                        MessageUtil.sendMessage(player, plugin.getConfig().getString("messages.punishment.unmuted"));
-                    }
+        // Runs every tick on the main thread; peeking the expiry queue is O(1), so
+        // idle ticks cost nothing and each expiry fires within a tick of its deadline.
+        Bukkit.getScheduler().runTaskTimer(plugin,
+                () -> activeIndex.pollExpired(System.currentTimeMillis(), this::onExpired), 1L, 1L);
+    }
+
+    private void onExpired(Punishment p) {
+        expirePunishmentAsync(p.getId());
+        markEnded(p.getId());
+        bus.publish(PunishmentBus.Kind.EXPIRED, p);
+        summaryCache.invalidate(p.getPlayerUuid());
+        switch (p.getType()) {
+            case MUTE -> {
+                Player player = Bukkit.getPlayer(p.getPlayerUuid());
+                if (player != null && player.isOnline()) {
+                    MessageUtil.sendMessage(player, plugin.getConfig().getString("messages.punishment.unmuted"));
                 }
             }
-            for (Punishment ban : new ArrayList<>(activeBans.values())) {
-                if (ban.isExpired()) {
-                    expirePunishmentAsync(ban.getId());
-                    activeBans.remove(ban.getPlayerUuid());
-                    unsyncVanillaBan(ban);
+            case BAN -> unsyncVanillaBan(p);
+            case BUILDBAN -> plugin.getBuildBanManager().onBuildBanExpired(p);
+            default -> {
+            }
+        }
+    }
+
+    /** Returns false if the id was already known to have ended. */
+    private boolean markEnded(int id) {
+        long now = System.currentTimeMillis();
+        boolean first = recentlyEnded.put(id, now) == null;
+        if (recentlyEnded.size() > 256) {
+            recentlyEnded.values().removeIf(t -> now - t > RECENTLY_ENDED_MS);
+        }
+        return first;
+    }
+
+    /**
+     * A change made on another server, from {@link PunishmentBus} or
+     * {@link PunishmentChangeFeed}. Only this server's share of the work happens here:
+     * the cache, players connected to this server and the local vanilla ban list. The
+     * database, audit log and notifications were handled by the origin.
+     *
+     * Applies row state, so repeats (the change feed re-reads its overlap window, and
+     * sees this server's own changes) are no-ops.
+     */
+    private void applyRemote(PunishmentBus.Event event) {
+        Punishment p = event.punishment();
+        Punishment cached = activeIndex.get(p.getPlayerUuid(), p.getType());
+        if (event.kind() == PunishmentBus.Kind.ISSUED) {
+            if (p.isActive() && ((cached != null && cached.getId() >= p.getId())
+                    || recentlyEnded.containsKey(p.getId()))) {
+                return;
+            }
+            summaryCache.invalidate(p.getPlayerUuid());
+            if (p.isActive()) {
+                activeIndex.put(p);
+            }
+            enforce(p);
+            return;
+        }
+        if (!ready.isDone()) {
+            removedDuringWarmup.add(p.getId());
+        }
+        if (markEnded(p.getId())) {
+            summaryCache.invalidate(p.getPlayerUuid());
+        }
+        // Only drop the exact punishment that ended; a newer one may have replaced it.
+        if (cached == null || cached.getId() != p.getId() || !activeIndex.remove(cached))
+            return;
+        switch (p.getType()) {
+            case MUTE -> {
+                Player player = Bukkit.getPlayer(p.getPlayerUuid());
+                if (event.kind() == PunishmentBus.Kind.EXPIRED && player != null && player.isOnline()) {
+                    MessageUtil.sendMessage(player, plugin.getConfig().getString("messages.punishment.unmuted"));
                 }
             }
-        }, 20L * 10, 20L * 10);
+            case BAN -> unsyncVanillaBan(p);
+            case BUILDBAN -> {
+                if (plugin.getBuildBanManager() != null)
+                    plugin.getBuildBanManager().onRemoteRelease(p.getPlayerUuid());
+            }
+            default -> {
+            }
+        }
+    }
+
+    public PunishmentBus getBus() {
+        return bus;
+    }
+
+    /** The polling fallback, or null when {@code network.sync.poll} is off. */
+    public PunishmentChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /** Stops cross-server sync; called on disable. */
+    public void shutdown() {
+        bus.close();
+        if (changeFeed != null) {
+            changeFeed.stop();
+        }
+    }
+
+    /** Shared active-punishment index for BAN, MUTE and BUILDBAN. */
+    public ActivePunishmentIndex getActiveIndex() {
+        return activeIndex;
     }
 
     private void unsyncVanillaBan(Punishment p) {
@@ -101,16 +281,56 @@ public class PunishmentManager {
     }
 
     public Punishment getActiveBan(UUID playerUuid) {
-        if (playerUuid == null)
-            return null;
-        Punishment ban = activeBans.get(playerUuid);
-        if (ban == null)
+        // Expired entries are cleaned up by the expiry task; just don't report them.
+        Punishment ban = activeIndex.get(playerUuid, PunishmentType.BAN);
+        return (ban == null || ban.isExpired()) ? null : ban;
+    }
+
+    /**
+     * Ban check for {@code AsyncPlayerPreLoginEvent}. Runs on the login thread, never
+     * the main thread. The Bloom filter rules out most players with no map lookup;
+     * possible hits go to the cache. While the cache is still warming up the login is
+     * held for up to {@code database.startup.login-wait-ms}, then checked directly
+     * against the database.
+     *
+     * @throws SQLException if the cache is not ready and the database lookup fails;
+     *                      the caller should refuse the login rather than let it through
+     */
+    public Punishment checkBanForLogin(UUID playerUuid) throws SQLException {
+        if (!isReady() && !awaitReady(plugin.getConfig().getLong("database.startup.login-wait-ms", 5000L))) {
+            return loadActiveBanBlocking(playerUuid);
+        }
+        if (!activeIndex.mightBeBanned(playerUuid)) {
             return null;
-        if (!ban.isExpired())
-            return ban;
-        activeBans.remove(playerUuid);
-        expirePunishmentAsync(ban.getId());
-        unsyncVanillaBan(ban);
+        }
+        return getActiveBan(playerUuid);
+    }
+
+    private boolean awaitReady(long timeoutMs) {
+        try {
+            ready.get(Math.max(0L, timeoutMs), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private Punishment loadActiveBanBlocking(UUID playerUuid) throws SQLException {
+        try (Connection conn = plugin.getDatabaseManager().getConnection();
+                PreparedStatement stmt = conn.prepareStatement("SELECT " + ACTIVE_COLUMNS
+                        + " FROM punishments WHERE player_uuid = ? AND type = ? AND active = 1 ORDER BY timestamp DESC LIMIT 1")) {
+            codec.setUuid(stmt, 1, playerUuid);
+            codec.setType(stmt, 2, PunishmentType.BAN);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Punishment ban = codec.activePunishment(rs);
+                    return ban.isExpired() ? null : ban;
+                }
+            }
+        }
         return null;
     }
 
@@ -119,24 +339,25 @@ public class PunishmentManager {
     }
 
     public boolean isPlayerMuted(UUID playerUuid) {
-        Punishment mute = activeMutes.get(playerUuid);
-        if (mute == null)
-            return false;
-        if (!mute.isExpired())
-            return true;
-        activeMutes.remove(playerUuid);
-        expirePunishmentAsync(mute.getId());
-        return false;
+        return getActiveMute(playerUuid) != null;
     }
 
     public Punishment getActiveMute(UUID playerUuid) {
-        Punishment mute = activeMutes.get(playerUuid);
-        if (mute == null)
-            return null;
-        if (!mute.isExpired())
-            return mute;
-        activeMutes.remove(playerUuid);
-        expirePunishmentAsync(mute.getId());
+        Punishment mute = activeIndex.get(playerUuid, PunishmentType.MUTE);
+        return (mute == null || mute.isExpired()) ? null : mute;
+    }
+
+    /**
+     * The player's active, unexpired BAN, MUTE or BUILDBAN with this id, from the
+     * cache only; null if it is not cached (which does not mean it is inactive).
+     */
+    public Punishment findActive(UUID playerUuid, int id) {
+        for (PunishmentType type : new PunishmentType[] { PunishmentType.BAN, PunishmentType.MUTE,
+                PunishmentType.BUILDBAN }) {
+            Punishment p = activeIndex.get(playerUuid, type);
+            if (p != null && p.getId() == id)
+                return p.isExpired() ? null : p;
+        }
         return null;
     }
 
@@ -152,96 +373,115 @@ public class PunishmentManager {
         return false;
     }
 
-    public String buildBanScreenMessage(Punishment punishment) {
-        List<String> lines = plugin.getConfig().getStringList("messages.punishment.ban-screen");
-        StringBuilder screen = new StringBuilder();
+    public Component buildBanScreen(Punishment punishment) {
         String expiresText = punishment.isPermanent() ? "Never (Permanent)"
                 : TimeUtil.formatDate(punishment.getExpiresAt());
         String durationRemaining = punishment.isPermanent() ? "Permanent"
                 : TimeUtil.formatDurationMillis(punishment.getRemainingTime()) + " remaining";
-        for (String line : lines) {
-            String formatted = line
-                    .replace("{reason}", punishment.getReason())
-                    .replace("{duration}",
-                            punishment.isPermanent() ? "Permanent" : TimeUtil.formatDuration(punishment.getDuration()))
-                    .replace("{duration-remaining}", durationRemaining)
-                    .replace("{date}", TimeUtil.formatDate(punishment.getTimestamp()))
-                    .replace("{expires}", expiresText)
-                    .replace("{id}", String.valueOf(punishment.getId()));
-            screen.append(formatted).append("\n");
-        }
-        return screen.toString();
+        return MessageUtil.linesTemplate("messages.punishment.ban-screen").render(
+                Placeholders.REASON.of(punishment.getReason()),
+                Placeholders.DURATION.of(
+                        punishment.isPermanent() ? "Permanent" : TimeUtil.formatDuration(punishment.getDuration())),
+                Placeholders.DURATION_REMAINING.of(durationRemaining),
+                Placeholders.DATE.of(punishment.getTimestamp()),
+                Placeholders.EXPIRES.of(expiresText),
+                Placeholders.ID.of(punishment.getId()));
     }
 
     public CompletableFuture<Punishment> issuePunishment(Punishment punishment) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                if (isActiveType(punishment.getType())
-                        && hasActivePunishment(punishment.getPlayerUuid(), punishment.getType())) {
-                    return null;
-                }
-                if (isActiveType(punishment.getType())
-                        && hasActiveInDb(conn, punishment.getPlayerUuid(), punishment.getType())) {
-                    return null;
-                }
-                boolean shouldBeActive = isActiveType(punishment.getType());
-                punishment.setActive(shouldBeActive);
-                String query = """
-                            INSERT INTO punishments (player_uuid, player_name, staff_uuid, staff_name,
-                            type, reason, duration, timestamp, expires_at, active, server_name, ip_address)
-                            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                        """;
-                try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setString(1, punishment.getPlayerUuid().toString());
-                    stmt.setString(2, punishment.getPlayerName());
-                    stmt.setString(3, punishment.getStaffUuid().toString());
-                    stmt.setString(4, punishment.getStaffName());
-                    stmt.setString(5, punishment.getType().name());
-                    stmt.setString(6, punishment.getReason());
-                    stmt.setLong(7, punishment.getDuration());
-                    stmt.setLong(8, punishment.getTimestamp());
-                    stmt.setObject(9, punishment.isPermanent() ? null : punishment.getExpiresAt());
-                    stmt.setBoolean(10, shouldBeActive);
-                    stmt.setString(11, Bukkit.getServer().getName());
-                    stmt.setString(12, punishment.getIpAddress());
-                    stmt.executeUpdate();
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            punishment.setId(rs.getInt(1));
-                        }
-                    }
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to issue punishment: " + e.getMessage());
+        if (isActiveType(punishment.getType())
+                && hasActivePunishment(punishment.getPlayerUuid(), punishment.getType())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // The check and the insert are serialized per player and type (see insertUnlessActive),
+        // so two staff, or two servers, punishing the same player at once cannot both get an
+        // active row in.
+        String serverName = Bukkit.getServer().getName();
+        boolean mysql = plugin.getDatabaseManager().isMySQL();
+        return plugin.getDatabaseManager().write(
+                conn -> insertUnlessActive(conn, codec, punishment, serverName, mysql) ? punishment : null
+        ).thenApply(issued -> {
+            if (issued == null)
                 return null;
-            }
             if (punishment.isActive()) {
-                if (punishment.getType() == PunishmentType.MUTE) {
-                    activeMutes.put(punishment.getPlayerUuid(), punishment);
-                }
-                if (punishment.getType() == PunishmentType.BAN) {
-                    activeBans.put(punishment.getPlayerUuid(), punishment);
-                }
+                activeIndex.put(punishment);
             }
+            summaryCache.invalidate(punishment.getPlayerUuid());
             plugin.getLogger().info("[Punishment] Issued " + punishment.getType() + " to " + punishment.getPlayerName()
                     + " (ID: " + punishment.getId() + ")");
             applyPunishmentAsync(punishment);
+            bus.publish(PunishmentBus.Kind.ISSUED, punishment);
             plugin.getAuditManager().logAction(
                     punishment.getStaffUuid(), punishment.getStaffName(), "PUNISHMENT_ISSUED",
                     punishment.getPlayerUuid(), punishment.getPlayerName(),
                     String.format("Type: %s, Reason: %s, Duration: %d", punishment.getType(), punishment.getReason(),
                             punishment.getDuration()));
             return punishment;
-        }, db);
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to issue punishment: " + DatabaseManager.rootMessage(e));
+            return null;
+        });
+    }
+
+    /**
+     * The statements behind {@link #issuePunishment}: unless the player already has an
+     * active punishment of this (active) type, inserts the row and sets its id and
+     * active flag. Returns false for a duplicate.
+     *
+     * The check and the insert run {@link DatabaseManager#exclusively exclusively},
+     * under a lock per player and type on MySQL.
+     */
+    static boolean insertUnlessActive(Connection conn, RowCodec codec, Punishment punishment, String serverName,
+            boolean mysql) throws SQLException {
+        if (!isActiveType(punishment.getType())) {
+            return checkAndInsert(conn, codec, punishment, serverName);
+        }
+        String lock = "stafftools.issue." + punishment.getPlayerUuid() + "." + punishment.getType();
+        return DatabaseManager.exclusively(conn, mysql, lock, c -> checkAndInsert(c, codec, punishment, serverName));
     }
 
-    private boolean hasActiveInDb(Connection conn, UUID playerUuid, PunishmentType type) throws SQLException {
-        if (!isActiveType(type))
+    private static boolean checkAndInsert(Connection conn, RowCodec codec, Punishment punishment, String serverName)
+            throws SQLException {
+        boolean shouldBeActive = isActiveType(punishment.getType());
+        if (shouldBeActive && hasActiveInDb(conn, codec, punishment.getPlayerUuid(), punishment.getType())) {
             return false;
+        }
+        punishment.setActive(shouldBeActive);
+        String query = """
+                    INSERT INTO punishments (player_uuid, player_name, staff_uuid, staff_name,
+                    type, reason, duration, timestamp, expires_at, active, server_name, ip_address, updated_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            codec.setUuid(stmt, 1, punishment.getPlayerUuid());
+            stmt.setString(2, punishment.getPlayerName());
+            codec.setUuid(stmt, 3, punishment.getStaffUuid());
+            stmt.setString(4, punishment.getStaffName());
+            codec.setType(stmt, 5, punishment.getType());
+            stmt.setString(6, punishment.getReason());
+            stmt.setLong(7, punishment.getDuration());
+            stmt.setLong(8, punishment.getTimestamp());
+            stmt.setObject(9, punishment.isPermanent() ? null : punishment.getExpiresAt());
+            stmt.setBoolean(10, shouldBeActive);
+            stmt.setString(11, serverName);
+            stmt.setString(12, punishment.getIpAddress());
+            stmt.setLong(13, System.currentTimeMillis());
+            stmt.executeUpdate();
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    punishment.setId(rs.getInt(1));
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasActiveInDb(Connection conn, RowCodec codec, UUID playerUuid, PunishmentType type)
+            throws SQLException {
         String sql = "SELECT 1 FROM punishments WHERE player_uuid = ? AND type = ? AND active = 1 LIMIT 1";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, playerUuid.toString());
-            stmt.setString(2, type.name());
+            codec.setUuid(stmt, 1, playerUuid);
+            codec.setType(stmt, 2, type);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
             }
@@ -249,28 +489,37 @@ public class PunishmentManager {
     }
 
     private void applyPunishmentAsync(Punishment punishment) {
+        enforce(punishment);
+        notifyStaff(punishment);
+        if (punishment.getType() == PunishmentType.BUILDBAN) {
+            plugin.getDiscordManager().sendBuildBanNotification(punishment);
+        } else {
+            plugin.getDiscordManager().sendPunishmentNotification(punishment);
+        }
+    }
+
+    /** Effects on this server: the target if connected here, and the vanilla ban list. */
+    private void enforce(Punishment punishment) {
         Player player = Bukkit.getPlayer(punishment.getPlayerUuid());
         switch (punishment.getType()) {
             case WARN -> {
                 if (player != null && player.isOnline()) {
-                    String message = plugin.getConfig().getString("messages.punishment.warned").replace("{reason}",
-                            punishment.getReason());
-                    MessageUtil.sendMessage(player, message);
+                    player.sendMessage(MessageUtil.prefixedTemplate("messages.punishment.warned", "")
+                            .render(Placeholders.REASON.of(punishment.getReason())));
                 }
             }
             case MUTE -> {
                 if (player != null && player.isOnline()) {
-                    String message = plugin.getConfig().getString("messages.punishment.muted")
-                            .replace("{reason}", punishment.getReason())
-                            .replace("{duration}", TimeUtil.formatDuration(punishment.getDuration()));
-                    MessageUtil.sendMessage(player, message);
+                    player.sendMessage(MessageUtil.prefixedTemplate("messages.punishment.muted", "").render(
+                            Placeholders.REASON.of(punishment.getReason()),
+                            Placeholders.DURATION.of(TimeUtil.formatDuration(punishment.getDuration()))));
                 }
             }
             case KICK -> {
                 if (player != null && player.isOnline()) {
-                    String message = plugin.getConfig().getString("messages.punishment.kicked").replace("{reason}",
-                            punishment.getReason());
-                    Bukkit.getScheduler().runTask(plugin, () -> player.kick(MessageUtil.component(message)));
+                    Component message = MessageUtil.template("messages.punishment.kicked", "")
+                            .render(Placeholders.REASON.of(punishment.getReason()));
+                    Bukkit.getScheduler().runTask(plugin, () -> player.kick(message));
                 }
             }
             case BAN -> {
@@ -289,55 +538,49 @@ public class PunishmentManager {
                     });
                 }
                 if (player != null && player.isOnline()) {
-                    String banScreen = buildBanScreenMessage(punishment);
-                    String kickReason = plugin.getConfig().getString("messages.punishment.ban-kick-reason",
-                            "You are banned. See Discord for details.");
+                    Component banScreen = buildBanScreen(punishment);
+                    Component kickReason = MessageUtil.template("messages.punishment.ban-kick-reason",
+                            "You are banned. See Discord for details.").render();
                     Bukkit.getScheduler().runTask(plugin, () -> {
-                        MessageUtil.sendMessage(player, banScreen);
-                        Bukkit.getScheduler().runTaskLater(plugin, () -> player.kick(MessageUtil.component(kickReason)),
-                                2L);
+                        player.sendMessage(banScreen);
+                        Bukkit.getScheduler().runTaskLater(plugin, () -> player.kick(kickReason), 2L);
                     });
                 }
             }
-            case BUILDBAN -> plugin.getBuildBanManager().issueBuildBan(punishment);
-        }
-        notifyStaff(punishment);
-        if (punishment.getType() == PunishmentType.BUILDBAN) {
-            plugin.getDiscordManager().sendBuildBanNotification(punishment);
-        } else {
-            plugin.getDiscordManager().sendPunishmentNotification(punishment);
+            case BUILDBAN -> {
+                if (plugin.getBuildBanManager() != null)
+                    plugin.getBuildBanManager().issueBuildBan(punishment);
+            }
         }
     }
 
     private void notifyStaff(Punishment punishment) {
         if (!plugin.getConfig().getBoolean("notifications.punishment-notifications", true))
             return;
-        String format = plugin.getConfig().getString("notifications.format.punishment")
-                .replace("{staff}", punishment.getStaffName())
-                .replace("{player}", punishment.getPlayerName())
-                .replace("{reason}", punishment.getReason());
-        for (Player staff : Bukkit.getOnlinePlayers()) {
-            if (staff != null && staff.hasPermission("stafftools.staff.notify")) {
-                MessageUtil.sendMessage(staff, format);
-            }
-        }
+        // Rendered once for every recipient
+        Component message = MessageUtil.prefixedTemplate("notifications.format.punishment", "").render(
+                Placeholders.STAFF.of(punishment.getStaffName()),
+                Placeholders.PLAYER.of(punishment.getPlayerName()),
+                Placeholders.REASON.of(punishment.getReason()));
+        plugin.getStaffAudience().audience(StaffAudience.Channel.STAFF).sendMessage(message);
     }
 
     public CompletableFuture<Boolean> removePunishment(int id, UUID removedBy, String removedByName, String reason) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                Punishment punishment = loadPunishment(conn, id);
-                if (punishment == null || !punishment.isActive())
-                    return false;
-                if (!deactivatePunishment(conn, punishment, removedBy, removedByName, reason))
-                    return false;
-                postRemovalSideEffects(punishment);
-                return true;
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to remove punishment: " + e.getMessage());
+        return plugin.getDatabaseManager().write(conn -> {
+            Punishment punishment = loadPunishment(conn, id);
+            if (punishment == null || !punishment.isActive())
+                return null;
+            deactivatePunishment(conn, codec, punishment.getId(), removedBy, reason);
+            return punishment;
+        }).thenApply(punishment -> {
+            if (punishment == null)
                 return false;
-            }
-        }, db);
+            afterDeactivated(punishment, removedBy, removedByName, reason);
+            return true;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to remove punishment: " + DatabaseManager.rootMessage(e));
+            return false;
+        });
     }
 
     private Punishment loadPunishment(Connection conn, int id) throws SQLException {
@@ -345,34 +588,45 @@ public class PunishmentManager {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next())
-                    return parsePunishment(rs);
+                    return codec.punishment(rs);
             }
         }
         return null;
     }
 
-    private boolean deactivatePunishment(Connection conn, Punishment punishment, UUID removedBy, String removedByName,
-            String reason) throws SQLException {
+    /** The statement behind a removal or unban. */
+    static void deactivatePunishment(Connection conn, RowCodec codec, int id, UUID removedBy, String reason)
+            throws SQLException {
         try (PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE punishments SET active = 0, removed_by = ?, removed_at = ?, removed_reason = ? WHERE id = ?")) {
-            stmt.setString(1, removedBy != null ? removedBy.toString() : null);
-            stmt.setLong(2, System.currentTimeMillis());
+                "UPDATE punishments SET active = 0, removed_by = ?, removed_at = ?, removed_reason = ?, updated_at = ? "
+                        + "WHERE id = ?")) {
+            long now = System.currentTimeMillis();
+            codec.setUuid(stmt, 1, removedBy);
+            stmt.setLong(2, now);
             stmt.setString(3, reason);
-            stmt.setInt(4, punishment.getId());
+            stmt.setLong(4, now);
+            stmt.setInt(5, id);
             stmt.executeUpdate();
         }
-        if (punishment.getType() == PunishmentType.MUTE) {
-            activeMutes.remove(punishment.getPlayerUuid());
+    }
+
+    /** Cache, build-ban, audit and vanilla-ban follow-up once the removal has committed. */
+    private void afterDeactivated(Punishment punishment, UUID removedBy, String removedByName, String reason) {
+        if (!ready.isDone()) {
+            removedDuringWarmup.add(punishment.getId());
         }
-        if (punishment.getType() == PunishmentType.BAN) {
-            activeBans.remove(punishment.getPlayerUuid());
+        markEnded(punishment.getId());
+        summaryCache.invalidate(punishment.getPlayerUuid());
+        if (punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.BAN) {
+            activeIndex.remove(punishment.getPlayerUuid(), punishment.getType());
         }
         if (punishment.getType() == PunishmentType.BUILDBAN) {
             plugin.getBuildBanManager().removeBuildBan(punishment.getPlayerUuid());
         }
         plugin.getAuditManager().logAction(removedBy, removedByName, "PUNISHMENT_REMOVED", punishment.getPlayerUuid(),
                 punishment.getPlayerName(), String.format("Punishment ID: %d, Reason: %s", punishment.getId(), reason));
-        return true;
+        postRemovalSideEffects(punishment);
+        bus.publish(PunishmentBus.Kind.REMOVED, punishment);
     }
 
     private void postRemovalSideEffects(Punishment punishment) {
@@ -386,15 +640,17 @@ public class PunishmentManager {
     }
 
     private void expirePunishmentAsync(int id) {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                    PreparedStatement stmt = conn.prepareStatement("UPDATE punishments SET active = 0 WHERE id = ?")) {
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to expire punishment: " + e.getMessage());
+        plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement stmt = conn
+                    .prepareStatement("UPDATE punishments SET active = 0, updated_at = ? WHERE id = ?")) {
+                stmt.setLong(1, System.currentTimeMillis());
+                stmt.setInt(2, id);
+                return stmt.executeUpdate();
             }
-        }, db);
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to expire punishment: " + DatabaseManager.rootMessage(e));
+            return null;
+        });
     }
 
     public CompletableFuture<List<Punishment>> getPlayerHistory(UUID playerUuid) {
@@ -403,10 +659,10 @@ public class PunishmentManager {
             try (Connection conn = plugin.getDatabaseManager().getConnection();
                     PreparedStatement stmt = conn.prepareStatement(
                             "SELECT * FROM punishments WHERE player_uuid = ? ORDER BY timestamp DESC")) {
-                stmt.setString(1, playerUuid.toString());
+                codec.setUuid(stmt, 1, playerUuid);
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next())
-                        history.add(parsePunishment(rs));
+                        history.add(codec.punishment(rs));
                 }
             } catch (SQLException e) {
                 plugin.getLogger().severe("Failed to get player history: " + e.getMessage());
@@ -415,6 +671,99 @@ public class PunishmentManager {
         }, db);
     }
 
+    /**
+     * Keyset-paginated history, newest first. Pass {@code Long.MAX_VALUE} /
+     * {@code Integer.MAX_VALUE} for the first page, then the previous page's cursor.
+     * Served by the (player_uuid, timestamp, id) index, so deep pages cost the same
+     * as the first one.
+     */
+    public CompletableFuture<PunishmentHistoryPage> getPlayerHistoryPage(UUID playerUuid, long beforeTimestamp,
+            int beforeId, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                return readHistoryPage(conn, codec, playerUuid, beforeTimestamp, beforeId, limit);
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to get player history page: " + e.getMessage());
+                // Not an empty last page: the caller must be able to tell "no more" from "failed"
+                throw new CompletionException(e);
+            }
+        }, db);
+    }
+
+    /** The query behind {@link #getPlayerHistoryPage}. */
+    static PunishmentHistoryPage readHistoryPage(Connection conn, RowCodec codec, UUID playerUuid,
+            long beforeTimestamp, int beforeId, int limit) throws SQLException {
+        List<Punishment> rows = new ArrayList<>(limit + 1);
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                SELECT * FROM punishments
+                WHERE player_uuid = ? AND (timestamp < ? OR (timestamp = ? AND id < ?))
+                ORDER BY timestamp DESC, id DESC LIMIT ?
+                """)) {
+            codec.setUuid(stmt, 1, playerUuid);
+            stmt.setLong(2, beforeTimestamp);
+            stmt.setLong(3, beforeTimestamp);
+            stmt.setInt(4, beforeId);
+            stmt.setInt(5, limit + 1); // one extra row tells us whether another page exists
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next())
+                    rows.add(codec.punishment(rs));
+            }
+        }
+        boolean hasMore = rows.size() > limit;
+        return new PunishmentHistoryPage(hasMore ? rows.subList(0, limit) : rows, hasMore);
+    }
+
+    /**
+     * Per-player totals by type, active count and latest punishment. Served from a
+     * bounded TTL cache that is invalidated whenever one of the player's punishments
+     * is issued, removed or expires.
+     */
+    public CompletableFuture<PunishmentSummary> getPlayerSummary(UUID playerUuid) {
+        return summaryCache.get(playerUuid, this::loadSummary);
+    }
+
+    private CompletableFuture<PunishmentSummary> loadSummary(UUID playerUuid) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                return readSummary(conn, codec, playerUuid);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, db);
+    }
+
+    /** The queries behind {@link #getPlayerSummary}. */
+    static PunishmentSummary readSummary(Connection conn, RowCodec codec, UUID playerUuid) throws SQLException {
+        Map<PunishmentType, Integer> totals = new EnumMap<>(PunishmentType.class);
+        int active = 0;
+        PunishmentType latestType = null;
+        String latestReason = null;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT type, COUNT(*) AS total, SUM(CASE WHEN active = 1 THEN 1 ELSE 0 END) AS active_count "
+                        + "FROM punishments WHERE player_uuid = ? GROUP BY type")) {
+            codec.setUuid(stmt, 1, playerUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(codec.getType(rs, "type"), rs.getInt("total"));
+                    active += rs.getInt("active_count");
+                }
+            }
+        }
+        if (totals.isEmpty())
+            return PunishmentSummary.EMPTY;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT type, reason FROM punishments WHERE player_uuid = ? ORDER BY timestamp DESC, id DESC LIMIT 1")) {
+            codec.setUuid(stmt, 1, playerUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    latestType = codec.getType(rs, "type");
+                    latestReason = rs.getString("reason");
+                }
+            }
+        }
+        return new PunishmentSummary(totals, active, latestType, latestReason);
+    }
+
     public CompletableFuture<List<Punishment>> getRecentPunishments(int limit) {
         return CompletableFuture.supplyAsync(() -> {
             List<Punishment> punishments = new ArrayList<>();
@@ -424,7 +773,7 @@ public class PunishmentManager {
                 stmt.setInt(1, limit);
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next())
-                        punishments.add(parsePunishment(rs));
+                        punishments.add(codec.punishment(rs));
                 }
             } catch (SQLException e) {
                 plugin.getLogger().severe("Failed to get recent punishments: " + e.getMessage());
@@ -440,7 +789,7 @@ public class PunishmentManager {
                 stmt.setInt(1, id);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next())
-                        return parsePunishment(rs);
+                        return codec.punishment(rs);
                 }
             } catch (SQLException e) {
                 plugin.getLogger().severe("Failed to get punishment: " + e.getMessage());
@@ -449,53 +798,41 @@ public class PunishmentManager {
         }, db);
     }
 
-    private Punishment parsePunishment(ResultSet rs) throws SQLException {
-        return new Punishment(
-                rs.getInt("id"),
-                UUID.fromString(rs.getString("player_uuid")),
-                rs.getString("player_name"),
-                UUID.fromString(rs.getString("staff_uuid")),
-                rs.getString("staff_name"),
-                PunishmentType.valueOf(rs.getString("type")),
-                rs.getString("reason"),
-                rs.getLong("duration"),
-                rs.getLong("timestamp"),
-                rs.getObject("expires_at") == null ? null : rs.getLong("expires_at"),
-                rs.getBoolean("active"),
-                rs.getString("removed_by") != null ? UUID.fromString(rs.getString("removed_by")) : null,
-                rs.getObject("removed_at") == null ? null : rs.getLong("removed_at"),
-                rs.getString("removed_reason"),
-                rs.getString("server_name"),
-                rs.getString("ip_address"));
-    }
-
     public CompletableFuture<Boolean> unbanByNameOrUuid(String idOrName, UUID staffUuid, String staffName,
             String reason) {
-        return CompletableFuture.supplyAsync(() -> {
-            UUID parsed = null;
-            try {
-                parsed = UUID.fromString(idOrName);
-            } catch (IllegalArgumentException ignored) {
-            }
-            final String sql = (parsed != null)
-                    ? "SELECT * FROM punishments WHERE player_uuid = ? AND type = 'BAN' AND active = 1 ORDER BY timestamp DESC LIMIT 1"
-                    : "SELECT * FROM punishments WHERE LOWER(player_name) = LOWER(?) AND type = 'BAN' AND active = 1 ORDER BY timestamp DESC LIMIT 1";
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                    PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, parsed != null ? parsed.toString() : idOrName);
+        UUID parsed = null;
+        try {
+            parsed = UUID.fromString(idOrName);
+        } catch (IllegalArgumentException ignored) {
+        }
+        final String sql = (parsed != null)
+                ? "SELECT * FROM punishments WHERE player_uuid = ? AND type = ? AND active = 1 ORDER BY timestamp DESC LIMIT 1"
+                : "SELECT * FROM punishments WHERE LOWER(player_name) = LOWER(?) AND type = ? AND active = 1 ORDER BY timestamp DESC LIMIT 1";
+        final UUID uuidKey = parsed;
+        final String unbanReason = (reason == null || reason.isBlank()) ? "Manual unban" : reason;
+        return plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                if (uuidKey != null) {
+                    codec.setUuid(ps, 1, uuidKey);
+                } else {
+                    ps.setString(1, idOrName);
+                }
+                codec.setType(ps, 2, PunishmentType.BAN);
                 try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        Punishment punishment = parsePunishment(rs);
-                        String unbanReason = (reason == null || reason.isBlank()) ? "Manual unban" : reason;
-                        if (deactivatePunishment(conn, punishment, staffUuid, staffName, unbanReason)) {
-                            postRemovalSideEffects(punishment);
-                            return true;
-                        }
-                        return false;
-                    }
+                    if (!rs.next())
+                        return null;
+                    Punishment punishment = codec.punishment(rs);
+                    deactivatePunishment(conn, codec, punishment.getId(), staffUuid, unbanReason);
+                    return punishment;
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to unban '" + idOrName + "': " + e.getMessage());
+            }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to unban '" + idOrName + "': " + DatabaseManager.rootMessage(e));
+            return null;
+        }).thenApply(punishment -> {
+            if (punishment != null) {
+                afterDeactivated(punishment, staffUuid, staffName, unbanReason);
+                return true;
             }
             OfflinePlayer target = Bukkit.getOfflinePlayer(idOrName);
             if (target.getUniqueId() != null && plugin.getConfig().getBoolean("punishment.sync-with-vanilla", true)) {
@@ -508,6 +845,6 @@ public class PunishmentManager {
                 }
             }
             return false;
-        }, db);
+        });
     }
 }
@@ -0,0 +1,82 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.PunishmentSummary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded cache of per-player punishment summaries.
+ *
+ * Stores the load future itself, so concurrent readers for the same player (Plan
+ * queries every provider at once) share a single query. Entries are evicted
+ * least-recently-used once {@code maxEntries} is exceeded.
+ */
+public final class PunishmentSummaryCache {
+
+    private final long ttlMillis;
+    private final Map<UUID, Entry> entries;
+
+    public PunishmentSummaryCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        int max = Math.max(16, maxEntries);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    public CompletableFuture<PunishmentSummary> get(UUID playerUuid,
+            Function<UUID, CompletableFuture<PunishmentSummary>> loader) {
+        long now = System.currentTimeMillis();
+        Entry created;
+        synchronized (entries) {
+            Entry existing = entries.get(playerUuid);
+            if (existing != null && now - existing.loadedAt < ttlMillis
+                    && !existing.future.isCompletedExceptionally()) {
+                return existing.future;
+            }
+            created = new Entry(new CompletableFuture<>(), now);
+            entries.put(playerUuid, created);
+        }
+        // Load outside the lock; failures are not cached.
+        loader.apply(playerUuid).whenComplete((summary, err) -> {
+            if (err != null) {
+                invalidate(playerUuid, created);
+                created.future.completeExceptionally(err);
+            } else {
+                created.future.complete(summary);
+            }
+        });
+        return created.future;
+    }
+
+    public void invalidate(UUID playerUuid) {
+        if (playerUuid == null)
+            return;
+        synchronized (entries) {
+            entries.remove(playerUuid);
+        }
+    }
+
+    private void invalidate(UUID playerUuid, Entry expected) {
+        synchronized (entries) {
+            entries.remove(playerUuid, expected);
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<PunishmentSummary> future;
+        final long loadedAt;
+
+        Entry(CompletableFuture<PunishmentSummary> future, long loadedAt) {
+            this.future = future;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -4,8 +4,9 @@ import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.database.models.Report;
 import com.inpuzah.stafftools.database.models.ReportStatus;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,15 +15,40 @@ import java.sql.SQLException;
 import java.sql.Statement; // <-- needed for RETURN_GENERATED_KEYS
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReportManager {
 
     private final StaffToolsPlugin plugin;
-    private final Map<UUID, Long> reportCooldowns;
+    // Open report per reported player within reports.aggregation.window-seconds
+    private final Map<UUID, Cluster> clusters = new ConcurrentHashMap<>();
+    private static final int MAX_MERGED_REASON = 1000;
+    private static final Component REPORTS_HINT =
+            MessageUtil.component("&7Use &e/reports &7to view and manage reports");
+
+    /** Recent reports against one player; guarded by its own monitor. */
+    private static final class Cluster {
+        final Set<UUID> reporters = new HashSet<>();
+        CompletableFuture<Report> tail = CompletableFuture.completedFuture(null);
+        long lastReportAt;
+        int reportId;
+        Report latest;
+        int sinceAlert;
+        boolean alertScheduled;
+
+        Cluster(long now) {
+            this.lastReportAt = now;
+        }
+
+        boolean isExpired(long now, long windowMs) {
+            synchronized (this) {
+                return now - lastReportAt > windowMs;
+            }
+        }
+    }
 
     public ReportManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
-        this.reportCooldowns = new HashMap<>();
         startAutoCloseTask();
     }
 
@@ -34,106 +60,250 @@ public class ReportManager {
         Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
             long cutoffTime = System.currentTimeMillis() - (autoCloseDays * 24L * 60 * 60 * 1000);
 
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+            plugin.getDatabaseManager().write(conn -> {
                 String query = "UPDATE reports SET status = 'DISMISSED' WHERE status = 'OPEN' AND timestamp < ?";
                 try (PreparedStatement stmt = conn.prepareStatement(query)) {
                     stmt.setLong(1, cutoffTime);
-                    int closed = stmt.executeUpdate();
-                    if (closed > 0) {
-                        plugin.getLogger().info("Auto-closed " + closed + " old reports");
-                    }
+                    return stmt.executeUpdate();
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to auto-close reports: " + e.getMessage());
-            }
+            }).whenComplete((closed, e) -> {
+                if (e != null) {
+                    plugin.getLogger().severe("Failed to auto-close reports: " + DatabaseManager.rootMessage(e));
+                } else if (closed > 0) {
+                    plugin.getLogger().info("Auto-closed " + closed + " old reports");
+                }
+            });
         }, 20L * 60 * 60 * 24, 20L * 60 * 60 * 24);
     }
 
     public CompletableFuture<Report> createReport(Report report) {
-        return CompletableFuture.supplyAsync(() -> {
-            // Cooldown
-            long cooldown = plugin.getConfig().getLong("reports.report-cooldown", 60) * 1000;
-            Long lastReport = reportCooldowns.get(report.getReporterUuid());
-            if (lastReport != null && System.currentTimeMillis() - lastReport < cooldown) {
-                return null; // still on cooldown
+        return plugin.getCooldownStore().remaining(CooldownStore.Scope.REPORT, report.getReporterUuid())
+                .thenCompose(left -> left > 0
+                        ? CompletableFuture.completedFuture(null) // still on cooldown
+                        : submitReport(report));
+    }
+
+    private CompletableFuture<Report> submitReport(Report report) {
+        if (report.getStatus() == null) report.setStatus(ReportStatus.OPEN);
+        String serverName = Bukkit.getServer().getName();
+        long windowMs = plugin.getConfig().getLong("reports.aggregation.window-seconds", 300) * 1000L;
+        boolean mysql = plugin.getDatabaseManager().isMySQL();
+
+        CompletableFuture<Report> written;
+        if (windowMs <= 0) {
+            written = plugin.getDatabaseManager().write(conn -> insertReport(conn, report, serverName));
+        } else {
+            long now = System.currentTimeMillis();
+            if (clusters.size() > 64) {
+                clusters.values().removeIf(c -> c.isExpired(now, windowMs));
             }
-            if (report.getStatus() == null) report.setStatus(ReportStatus.OPEN);
-
-            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-                String query = """
-                    INSERT INTO reports (reporter_uuid, reporter_name, reported_uuid, reported_name,
-                    reason, timestamp, status, server_name)
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-                try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-                    stmt.setString(1, report.getReporterUuid().toString());
-                    stmt.setString(2, report.getReporterName());
-                    stmt.setString(3, report.getReportedUuid().toString());
-                    stmt.setString(4, report.getReportedName());
-                    stmt.setString(5, report.getReason());
-                    stmt.setLong(6, report.getTimestamp());
-                    stmt.setString(7, report.getStatus().name());
-                    stmt.setString(8, Bukkit.getServer().getName());
-                    stmt.executeUpdate();
-
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) report.setId(rs.getInt(1));
+            Cluster cluster = clusters.compute(report.getReportedUuid(),
+                    (k, c) -> c == null || c.isExpired(now, windowMs) ? new Cluster(now) : c);
+            synchronized (cluster) {
+                if (!cluster.reporters.add(report.getReporterUuid())) {
+                    return CompletableFuture.completedFuture(null); // this reporter is already counted
+                }
+                cluster.lastReportAt = now;
+                // Reports on the same player are written one after another, so they cannot
+                // both miss the open row and insert two.
+                long windowStart = now - windowMs;
+                written = cluster.tail.exceptionally(e -> null).thenCompose(prev -> plugin.getDatabaseManager()
+                        .write(conn -> upsertReport(conn, mysql, report, serverName, windowStart)));
+                cluster.tail = written;
+            }
+            // A report that was never stored must not count, or the reporter could not try again
+            written.whenComplete((stored, e) -> {
+                if (e != null) {
+                    synchronized (cluster) {
+                        cluster.reporters.remove(report.getReporterUuid());
                     }
                 }
+            });
+        }
 
-                // cooldown + notify + audit + discord
-                reportCooldowns.put(report.getReporterUuid(), System.currentTimeMillis());
+        return written.thenApply(stored -> {
+            // cooldown + notify + audit + discord
+            plugin.getCooldownStore().start(CooldownStore.Scope.REPORT, report.getReporterUuid(),
+                    plugin.getConfig().getLong("reports.report-cooldown", 60) * 1000L);
+            plugin.getAuditManager().logAction(
+                    report.getReporterUuid(), report.getReporterName(), "REPORT_CREATED",
+                    report.getReportedUuid(), report.getReportedName(),
+                    "Report #" + stored.getId() + " - Reason: " + report.getReason()
+            );
+            if (stored.getReportCount() <= 1) {
+                Cluster cluster = clusters.get(report.getReportedUuid());
+                if (cluster != null) {
+                    synchronized (cluster) {
+                        cluster.reportId = stored.getId();
+                    }
+                }
                 if (plugin.getConfig().getBoolean("reports.notify-staff", true)) {
-                    notifyStaff(report);
+                    notifyStaff(stored);
                 }
-                plugin.getDiscordManager().sendReportNotification(report);
-                plugin.getAuditManager().logAction(
-                        report.getReporterUuid(), report.getReporterName(), "REPORT_CREATED",
-                        report.getReportedUuid(), report.getReportedName(), "Reason: " + report.getReason()
-                );
-
-                return report;
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to create report: " + e.getMessage());
-                return null;
+                plugin.getDiscordManager().sendReportNotification(stored);
+            } else {
+                coalesceNotification(stored);
             }
+            return stored;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to create report: " + DatabaseManager.rootMessage(e));
+            return null;
         });
     }
 
-    private void notifyStaff(Report report) {
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            String message = MessageUtil.colorize(
-                    "&7[&c&lREPORT&7] &e" + report.getReporterName() +
-                            " &7reported &e" + report.getReportedName() +
-                            " &7for: &f" + report.getReason()
-            );
-            for (Player staff : Bukkit.getOnlinePlayers()) {
-                if (staff != null && staff.hasPermission("stafftools.report.notify")) {
-                    staff.sendMessage(message);
-                    staff.sendMessage(MessageUtil.colorize("&7Use &e/reports &7to view and manage reports"));
+    static Report insertReport(Connection conn, Report report, String serverName) throws SQLException {
+        String query = """
+            INSERT INTO reports (reporter_uuid, reporter_name, reported_uuid, reported_name,
+            reason, timestamp, status, server_name, report_count, last_reported_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, ?)
+        """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, report.getReporterUuid().toString());
+            stmt.setString(2, report.getReporterName());
+            stmt.setString(3, report.getReportedUuid().toString());
+            stmt.setString(4, report.getReportedName());
+            stmt.setString(5, report.getReason());
+            stmt.setLong(6, report.getTimestamp());
+            stmt.setString(7, report.getStatus().name());
+            stmt.setString(8, serverName);
+            stmt.setLong(9, report.getTimestamp());
+            stmt.executeUpdate();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) report.setId(rs.getInt(1));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Folds the report into the reported player's open report from within the window
+     * (count bumped, reason merged) or, if there is none, inserts it. Returns the
+     * stored row's state.
+     *
+     * The lookup and the write run {@link DatabaseManager#exclusively exclusively},
+     * under a lock per reported player on MySQL: the per-cluster chain in
+     * {@link #submitReport} only orders reports within this server.
+     */
+    static Report upsertReport(Connection conn, boolean mysql, Report report, String serverName, long windowStart)
+            throws SQLException {
+        String lock = "stafftools.report." + report.getReportedUuid();
+        return DatabaseManager.exclusively(conn, mysql, lock, c -> findAndUpsert(c, report, serverName, windowStart));
+    }
+
+    private static Report findAndUpsert(Connection conn, Report report, String serverName, long windowStart)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                SELECT * FROM reports WHERE reported_uuid = ? AND status IN ('OPEN', 'CLAIMED')
+                AND last_reported_at >= ? ORDER BY id DESC LIMIT 1
+            """)) {
+            stmt.setString(1, report.getReportedUuid().toString());
+            stmt.setLong(2, windowStart);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return insertReport(conn, report, serverName);
                 }
+                Report open = parseReport(rs);
+                String merged = mergeReasons(open.getReason(), report.getReason());
+                try (PreparedStatement update = conn.prepareStatement(
+                        "UPDATE reports SET report_count = report_count + 1, reason = ?, last_reported_at = ? WHERE id = ?")) {
+                    update.setString(1, merged);
+                    update.setLong(2, report.getTimestamp());
+                    update.setInt(3, open.getId());
+                    update.executeUpdate();
+                }
+                Report stored = new Report(open.getId(), open.getReporterUuid(), open.getReporterName(),
+                        open.getReportedUuid(), report.getReportedName(), merged, open.getTimestamp(),
+                        open.getStatus(), open.getHandledBy(), open.getHandledByName(), open.getHandledAt(),
+                        open.getHandlerNote(), open.getServerName());
+                stored.setReportCount(open.getReportCount() + 1);
+                return stored;
             }
-        });
+        }
+    }
+
+    private static String mergeReasons(String existing, String added) {
+        if (existing == null || existing.isBlank())
+            return added;
+        for (String part : existing.split("; ")) {
+            if (part.equalsIgnoreCase(added))
+                return existing;
+        }
+        if (existing.length() + added.length() > MAX_MERGED_REASON)
+            return existing;
+        return existing + "; " + added;
+    }
+
+    /**
+     * Later reports in a cluster: the first one after an alert schedules a single
+     * summary alert {@code notify-interval-seconds} later; the rest just update it.
+     */
+    private void coalesceNotification(Report stored) {
+        Cluster cluster = clusters.computeIfAbsent(stored.getReportedUuid(),
+                k -> new Cluster(System.currentTimeMillis()));
+        long delayTicks = Math.max(1L, plugin.getConfig().getLong("reports.aggregation.notify-interval-seconds", 30) * 20L);
+        synchronized (cluster) {
+            cluster.reportId = stored.getId();
+            cluster.latest = stored;
+            cluster.sinceAlert++;
+            if (cluster.alertScheduled)
+                return;
+            cluster.alertScheduled = true;
+        }
+        Cluster c = cluster;
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+            Report latest;
+            int added;
+            synchronized (c) {
+                latest = c.latest;
+                added = c.sinceAlert;
+                c.sinceAlert = 0;
+                c.alertScheduled = false;
+            }
+            if (latest == null || added == 0)
+                return;
+            if (plugin.getConfig().getBoolean("reports.notify-staff", true)) {
+                notifyStaffCluster(latest, added);
+            }
+            plugin.getDiscordManager().sendReportNotification(latest);
+        }, delayTicks);
+    }
+
+    private void notifyStaffCluster(Report report, int added) {
+        plugin.getStaffAudience().audience(StaffAudience.Channel.REPORTS).sendMessage(MessageUtil.component(
+                "&7[&c&lREPORT&7] &e" + report.getReportedName() +
+                        " &7has now been reported &c" + report.getReportCount() + "x &7(+" + added +
+                        ") for: &f" + report.getReason()
+        ));
+    }
+
+    private void notifyStaff(Report report) {
+        Audience staff = plugin.getStaffAudience().audience(StaffAudience.Channel.REPORTS);
+        staff.sendMessage(MessageUtil.component(
+                "&7[&c&lREPORT&7] &e" + report.getReporterName() +
+                        " &7reported &e" + report.getReportedName() +
+                        " &7for: &f" + report.getReason()
+        ));
+        staff.sendMessage(REPORTS_HINT);
     }
 
     public CompletableFuture<List<Report>> getReports(ReportStatus status) {
-        return CompletableFuture.supplyAsync(() -> {
+        String query = status == null
+                ? "SELECT * FROM reports ORDER BY timestamp DESC LIMIT 100"
+                : "SELECT * FROM reports WHERE status = ? ORDER BY timestamp DESC LIMIT 100";
+        return plugin.getDatabaseManager().read(conn -> {
             List<Report> reports = new ArrayList<>();
-            String query = status == null
-                    ? "SELECT * FROM reports ORDER BY timestamp DESC LIMIT 100"
-                    : "SELECT * FROM reports WHERE status = ? ORDER BY timestamp DESC LIMIT 100";
-
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(query)) {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 if (status != null) stmt.setString(1, status.name());
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) reports.add(parseReport(rs));
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to get reports: " + e.getMessage());
             }
             return reports;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to get reports: " + DatabaseManager.rootMessage(e));
+            return new ArrayList<>();
         });
     }
 
@@ -143,9 +313,8 @@ public class ReportManager {
 
     public CompletableFuture<Boolean> handleReport(int reportId, UUID staffUuid, String staffName,
                                                    ReportStatus newStatus, String note) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                 PreparedStatement stmt = conn.prepareStatement("""
+        return plugin.getDatabaseManager().write(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("""
                      UPDATE reports SET status = ?, handled_by = ?, handled_by_name = ?,
                      handled_at = ?, handler_note = ? WHERE id = ?
                  """)) {
@@ -155,40 +324,47 @@ public class ReportManager {
                 stmt.setLong(4, System.currentTimeMillis());
                 stmt.setString(5, note);
                 stmt.setInt(6, reportId);
-                int affected = stmt.executeUpdate();
-
-                if (affected > 0) {
-                    plugin.getAuditManager().logAction(
-                            staffUuid, staffName, "REPORT_HANDLED",
-                            null, null,
-                            "Report #" + reportId + " - Status: " + newStatus + " - Note: " + note
-                    );
-                    return true;
+                return stmt.executeUpdate() > 0;
+            }
+        }).thenApply(handled -> {
+            if (handled) {
+                if (newStatus != ReportStatus.OPEN && newStatus != ReportStatus.CLAIMED) {
+                    // Later reports on the same player start a new cluster.
+                    clusters.values().removeIf(c -> {
+                        synchronized (c) {
+                            return c.reportId == reportId;
+                        }
+                    });
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to handle report: " + e.getMessage());
+                plugin.getAuditManager().logAction(
+                        staffUuid, staffName, "REPORT_HANDLED",
+                        null, null,
+                        "Report #" + reportId + " - Status: " + newStatus + " - Note: " + note
+                );
             }
+            return handled;
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to handle report: " + DatabaseManager.rootMessage(e));
             return false;
         });
     }
 
     public CompletableFuture<Report> getReport(int id) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                 PreparedStatement stmt = conn.prepareStatement("SELECT * FROM reports WHERE id = ?")) {
+        return plugin.getDatabaseManager().read(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM reports WHERE id = ?")) {
                 stmt.setInt(1, id);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) return parseReport(rs);
+                    return rs.next() ? parseReport(rs) : null;
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to get report: " + e.getMessage());
             }
+        }).exceptionally(e -> {
+            plugin.getLogger().severe("Failed to get report: " + DatabaseManager.rootMessage(e));
             return null;
         });
     }
 
-    private Report parseReport(ResultSet rs) throws SQLException {
-        return new Report(
+    private static Report parseReport(ResultSet rs) throws SQLException {
+        Report report = new Report(
                 rs.getInt("id"),
                 UUID.fromString(rs.getString("reporter_uuid")),
                 rs.getString("reporter_name"),
@@ -203,5 +379,7 @@ public class ReportManager {
                 rs.getString("handler_note"),
                 rs.getString("server_name")
         );
+        report.setReportCount(rs.getInt("report_count"));
+        return report;
     }
 }
@@ -0,0 +1,135 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.database.models.Punishment;
+import com.inpuzah.stafftools.database.models.PunishmentType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Binds and reads the UUID and punishment-type columns of {@code punishments} and
+ * {@code audit_log} in whichever encoding the database uses, and maps punishment
+ * rows. The only place that knows the column encoding.
+ *
+ * TEXT is the original layout: {@code VARCHAR(36)} UUIDs and type names. COMPACT
+ * (opt-in, {@code database.compact-encoding}) stores UUIDs as 16 raw bytes and
+ * types as {@link PunishmentType#getCode()}; reading those decodes the bytes and
+ * looks up the code directly, with no intermediate String or parsing.
+ */
+public final class RowCodec {
+
+    public static final RowCodec TEXT = new RowCodec(false);
+    public static final RowCodec COMPACT = new RowCodec(true);
+
+    private final boolean compact;
+
+    private RowCodec(boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setUuid(PreparedStatement ps, int index, UUID uuid) throws SQLException {
+        if (uuid == null) {
+            ps.setNull(index, compact ? Types.BINARY : Types.VARCHAR);
+        } else if (compact) {
+            ps.setBytes(index, toBytes(uuid));
+        } else {
+            ps.setString(index, uuid.toString());
+        }
+    }
+
+    public UUID getUuid(ResultSet rs, String column) throws SQLException {
+        if (compact) {
+            byte[] b = rs.getBytes(column);
+            return b == null ? null : new UUID(readLong(b, 0), readLong(b, 8));
+        }
+        String s = rs.getString(column);
+        return s == null ? null : UUID.fromString(s);
+    }
+
+    public void setType(PreparedStatement ps, int index, PunishmentType type) throws SQLException {
+        if (compact) {
+            ps.setInt(index, type.getCode());
+        } else {
+            ps.setString(index, type.name());
+        }
+    }
+
+    public PunishmentType getType(ResultSet rs, String column) throws SQLException {
+        return compact ? PunishmentType.fromCode(rs.getInt(column)) : PunishmentType.valueOf(rs.getString(column));
+    }
+
+    /** Maps a full {@code SELECT *} punishments row. */
+    public Punishment punishment(ResultSet rs) throws SQLException {
+        long expiresAt = rs.getLong("expires_at");
+        Long expires = rs.wasNull() ? null : expiresAt;
+        long removedAt = rs.getLong("removed_at");
+        Long removed = rs.wasNull() ? null : removedAt;
+        return new Punishment(
+                rs.getInt("id"),
+                getUuid(rs, "player_uuid"),
+                rs.getString("player_name"),
+                getUuid(rs, "staff_uuid"),
+                rs.getString("staff_name"),
+                getType(rs, "type"),
+                rs.getString("reason"),
+                rs.getLong("duration"),
+                rs.getLong("timestamp"),
+                expires,
+                rs.getBoolean("active"),
+                getUuid(rs, "removed_by"),
+                removed,
+                rs.getString("removed_reason"),
+                rs.getString("server_name"),
+                rs.getString("ip_address"));
+    }
+
+    /**
+     * Maps a row of {@link PunishmentManager}'s active-cache columns; the removal and
+     * origin fields are left empty.
+     */
+    public Punishment activePunishment(ResultSet rs) throws SQLException {
+        long expiresAt = rs.getLong("expires_at");
+        Long expires = rs.wasNull() ? null : expiresAt;
+        return new Punishment(
+                rs.getInt("id"),
+                getUuid(rs, "player_uuid"),
+                rs.getString("player_name"),
+                getUuid(rs, "staff_uuid"),
+                rs.getString("staff_name"),
+                getType(rs, "type"),
+                rs.getString("reason"),
+                rs.getLong("duration"),
+                rs.getLong("timestamp"),
+                expires,
+                true, null, null, null, null, null);
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        byte[] b = new byte[16];
+        writeLong(b, 0, uuid.getMostSignificantBits());
+        writeLong(b, 8, uuid.getLeastSignificantBits());
+        return b;
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFFL);
+        }
+        return v;
+    }
+
+    private static void writeLong(byte[] b, int off, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
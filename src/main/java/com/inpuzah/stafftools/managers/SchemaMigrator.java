@@ -0,0 +1,423 @@
+package com.inpuzah.stafftools.managers;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Versioned schema upgrades, recorded in {@code schema_version}.
+ *
+ * Each migration runs once, in order, and every step in it is idempotent (tables
+ * and indexes are created only if missing, columns added only if absent), so a
+ * database created before versioning existed, or one where a migration was cut
+ * short, is brought up to date by simply running the pending steps again.
+ *
+ * On SQLite a migration runs in one transaction. MySQL commits DDL implicitly, so
+ * there each step stands alone; indexes and columns are added with
+ * {@code ALGORITHM=INPLACE, LOCK=NONE} so large tables stay readable and writable
+ * while they build. Every step is timed and logged.
+ *
+ * Append new migrations to {@link #MIGRATIONS}; never edit one that has shipped.
+ */
+class SchemaMigrator {
+
+    @FunctionalInterface
+    private interface Body {
+        void apply(Steps steps) throws SQLException;
+    }
+
+    private record Migration(int version, String description, Body body) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Base tables and indexes", SchemaMigrator::baseSchema),
+            new Migration(2, "Appeal player and reviewer name columns", s -> {
+                s.addColumn("punishment_appeals", "player_name", "VARCHAR(16)");
+                s.addColumn("punishment_appeals", "reviewed_by_name", "VARCHAR(16)");
+            }),
+            new Migration(3, "Lookup indexes for warm-up, history, appeals, reports and audit retention", s -> {
+                // Warm-up and login fallback: WHERE type = ? AND active = 1
+                s.createIndex("idx_punishments_type_active", "punishments", "type, active");
+                // History pages and summaries, newest first per player
+                s.createIndex("idx_punishments_player_time", "punishments", "player_uuid, timestamp, id");
+                // Pending-appeal check before every appeal insert
+                s.createIndex("idx_appeals_punishment_status", "punishment_appeals", "punishment_id, status");
+                // Report lists: WHERE status = ? ORDER BY timestamp DESC
+                s.createIndex("idx_reports_status_time", "reports", "status, timestamp");
+                // Audit retention: DELETE ... WHERE timestamp < ?
+                s.createIndex("idx_audit_timestamp", "audit_log", "timestamp");
+            }),
+            new Migration(4, "Punishment change cursor for cross-server polling", s -> {
+                // Set on insert, removal and expiry; rows from before this stay NULL and are never polled.
+                s.addColumn("punishments", "updated_at", "BIGINT");
+                s.createIndex("idx_punishments_updated", "punishments", "updated_at, id");
+            }),
+            new Migration(5, "Report aggregation counter", s -> {
+                s.addColumn("reports", "report_count", "INTEGER NOT NULL DEFAULT 1");
+                s.addColumn("reports", "last_reported_at", "BIGINT");
+                // Open report for a player within the aggregation window
+                s.createIndex("idx_reports_reported_status", "reports", "reported_uuid, status, last_reported_at");
+            }),
+            new Migration(6, "Persistent report and appeal cooldowns", s -> {
+                // One row per running cooldown; the UUID is split into two longs so the
+                // row is fixed-width on both dialects.
+                s.createTable("cooldowns", """
+                        CREATE TABLE IF NOT EXISTS cooldowns (
+                            scope SMALLINT NOT NULL,
+                            uuid_msb BIGINT NOT NULL,
+                            uuid_lsb BIGINT NOT NULL,
+                            expires_at BIGINT NOT NULL,
+                            PRIMARY KEY (scope, uuid_msb, uuid_lsb)
+                        )
+                        """);
+                // Startup load and the expiry sweep
+                s.createIndex("idx_cooldowns_expires", "cooldowns", "expires_at");
+            }),
+            new Migration(7, "At most one pending appeal per punishment", s -> {
+                // Appeals that slipped past the old check-then-insert; the earliest stays pending.
+                s.execute("duplicate pending appeals", """
+                        UPDATE punishment_appeals SET status = 'DENIED', review_note = 'Duplicate appeal'
+                        WHERE status = 'PENDING' AND id NOT IN (
+                            SELECT keep_id FROM (
+                                SELECT MIN(id) AS keep_id FROM punishment_appeals
+                                WHERE status = 'PENDING' GROUP BY punishment_id
+                            ) keep
+                        )
+                        """);
+                // Guards the conditional appeal insert
+                s.createPartialUniqueIndex("idx_appeals_pending", "punishment_appeals", "punishment_id",
+                        "status = 'PENDING'", "pending_punishment_id");
+            }));
+
+    private final boolean mysql;
+    private final Logger logger;
+
+    SchemaMigrator(boolean mysql, Logger logger) {
+        this.mysql = mysql;
+        this.logger = logger;
+    }
+
+    /** Applies every pending migration. Returns the resulting schema version. */
+    int migrate(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description VARCHAR(200) NOT NULL,
+                        applied_at BIGINT NOT NULL,
+                        duration_ms BIGINT NOT NULL
+                    )
+                    """);
+        }
+        int current = currentVersion(conn);
+        int latest = MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+        if (current >= latest) {
+            return current;
+        }
+
+        long total = System.nanoTime();
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            apply(conn, migration);
+            current = migration.version();
+        }
+        logger.info("[Database] Schema at version " + current + " (migrations took "
+                + (System.nanoTime() - total) / 1_000_000L + "ms)");
+        return current;
+    }
+
+    private int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("[Database] Applying schema migration " + migration.version() + ": " + migration.description());
+        long start = System.nanoTime();
+        boolean transactional = !mysql && conn.getAutoCommit();
+        if (transactional) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            migration.body().apply(new Steps(conn));
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at, duration_ms) VALUES (?, ?, ?, ?)")) {
+                ps.setInt(1, migration.version());
+                ps.setString(2, migration.description());
+                ps.setLong(3, System.currentTimeMillis());
+                ps.setLong(4, (System.nanoTime() - start) / 1_000_000L);
+                ps.executeUpdate();
+            }
+            if (transactional) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (transactional) {
+                conn.rollback();
+            }
+            throw new SQLException("Schema migration " + migration.version() + " (" + migration.description()
+                    + ") failed: " + e.getMessage(), e);
+        } finally {
+            if (transactional) {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void baseSchema(Steps s) throws SQLException {
+        s.createTable("punishments", """
+                CREATE TABLE IF NOT EXISTS punishments (
+                    id INTEGER PRIMARY KEY %s,
+                    player_uuid VARCHAR(36) NOT NULL,
+                    player_name VARCHAR(16) NOT NULL,
+                    staff_uuid VARCHAR(36) NOT NULL,
+                    staff_name VARCHAR(16) NOT NULL,
+                    type VARCHAR(20) NOT NULL,
+                    reason TEXT NOT NULL,
+                    duration BIGINT NOT NULL,
+                    timestamp BIGINT NOT NULL,
+                    expires_at BIGINT,
+                    active BOOLEAN NOT NULL DEFAULT 1,
+                    removed_by VARCHAR(36),
+                    removed_at BIGINT,
+                    removed_reason TEXT,
+                    server_name VARCHAR(50),
+                    ip_address VARCHAR(45)
+                )
+                """);
+        s.createTable("punishment_appeals", """
+                CREATE TABLE IF NOT EXISTS punishment_appeals (
+                    id INTEGER PRIMARY KEY %s,
+                    punishment_id INTEGER NOT NULL,
+                    player_uuid VARCHAR(36) NOT NULL,
+                    appeal_text TEXT NOT NULL,
+                    timestamp BIGINT NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    reviewed_by VARCHAR(36),
+                    reviewed_at BIGINT,
+                    review_note TEXT,
+                    FOREIGN KEY (punishment_id) REFERENCES punishments(id)
+                )
+                """);
+        s.createTable("staff_notes", """
+                CREATE TABLE IF NOT EXISTS staff_notes (
+                    id INTEGER PRIMARY KEY %s,
+                    player_uuid VARCHAR(36) NOT NULL,
+                    player_name VARCHAR(16) NOT NULL,
+                    staff_uuid VARCHAR(36) NOT NULL,
+                    staff_name VARCHAR(16) NOT NULL,
+                    note TEXT NOT NULL,
+                    timestamp BIGINT NOT NULL,
+                    removed BOOLEAN NOT NULL DEFAULT 0
+                )
+                """);
+        s.createTable("audit_log", """
+                CREATE TABLE IF NOT EXISTS audit_log (
+                    id INTEGER PRIMARY KEY %s,
+                    staff_uuid VARCHAR(36) NOT NULL,
+                    staff_name VARCHAR(16) NOT NULL,
+                    action VARCHAR(50) NOT NULL,
+                    target_uuid VARCHAR(36),
+                    target_name VARCHAR(16),
+                    details TEXT,
+                    timestamp BIGINT NOT NULL,
+                    server_name VARCHAR(50)
+                )
+                """);
+        s.createTable("player_sessions", """
+                CREATE TABLE IF NOT EXISTS player_sessions (
+                    id INTEGER PRIMARY KEY %s,
+                    player_uuid VARCHAR(36) NOT NULL,
+                    player_name VARCHAR(16) NOT NULL,
+                    ip_address VARCHAR(45) NOT NULL,
+                    join_time BIGINT NOT NULL,
+                    leave_time BIGINT,
+                    server_name VARCHAR(50)
+                )
+                """);
+        s.createTable("reports", """
+                CREATE TABLE IF NOT EXISTS reports (
+                    id INTEGER PRIMARY KEY %s,
+                    reporter_uuid VARCHAR(36) NOT NULL,
+                    reporter_name VARCHAR(16) NOT NULL,
+                    reported_uuid VARCHAR(36) NOT NULL,
+                    reported_name VARCHAR(16) NOT NULL,
+                    reason TEXT NOT NULL,
+                    timestamp BIGINT NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    handled_by VARCHAR(36),
+                    handled_by_name VARCHAR(16),
+                    handled_at BIGINT,
+                    handler_note TEXT,
+                    server_name VARCHAR(50)
+                )
+                """);
+        s.createTable("buildban_groups", """
+                CREATE TABLE IF NOT EXISTS buildban_groups (
+                    player_uuid VARCHAR(36) PRIMARY KEY,
+                    original_group VARCHAR(50) NOT NULL,
+                    needs_restoration BOOLEAN DEFAULT 0
+                )
+                """);
+        s.createTable("punishment_templates", """
+                CREATE TABLE IF NOT EXISTS punishment_templates (
+                    id INTEGER PRIMARY KEY %s,
+                    name VARCHAR(50) UNIQUE NOT NULL,
+                    type VARCHAR(20) NOT NULL,
+                    reason TEXT NOT NULL,
+                    duration BIGINT NOT NULL,
+                    created_by VARCHAR(36) NOT NULL,
+                    created_at BIGINT NOT NULL
+                )
+                """);
+        s.createTable("staff_statistics", """
+                CREATE TABLE IF NOT EXISTS staff_statistics (
+                    id INTEGER PRIMARY KEY %s,
+                    staff_uuid VARCHAR(36) NOT NULL,
+                    action_type VARCHAR(50) NOT NULL,
+                    count INTEGER DEFAULT 1,
+                    last_action BIGINT NOT NULL,
+                    date_key VARCHAR(10) NOT NULL,
+                    UNIQUE(staff_uuid, action_type, date_key)
+                )
+                """);
+
+        s.createIndex("idx_punishments_player", "punishments", "player_uuid");
+        s.createIndex("idx_punishments_active", "punishments", "active");
+        s.createIndex("idx_punishments_type", "punishments", "type");
+        s.createIndex("idx_punishments_timestamp", "punishments", "timestamp");
+        s.createIndex("idx_appeals_punishment", "punishment_appeals", "punishment_id");
+        s.createIndex("idx_appeals_player", "punishment_appeals", "player_uuid");
+        s.createIndex("idx_appeals_status", "punishment_appeals", "status");
+        s.createIndex("idx_notes_player", "staff_notes", "player_uuid");
+        s.createIndex("idx_audit_staff", "audit_log", "staff_uuid");
+        s.createIndex("idx_audit_action", "audit_log", "action");
+        s.createIndex("idx_sessions_player", "player_sessions", "player_uuid");
+        s.createIndex("idx_sessions_ip", "player_sessions", "ip_address");
+        s.createIndex("idx_reports_status", "reports", "status");
+        s.createIndex("idx_reports_reported", "reports", "reported_uuid");
+        s.createIndex("idx_reports_timestamp", "reports", "timestamp");
+        s.createIndex("idx_stats_staff", "staff_statistics", "staff_uuid");
+        s.createIndex("idx_stats_date", "staff_statistics", "date_key");
+    }
+
+    /** Idempotent, dialect-aware schema operations, each one timed. */
+    private final class Steps {
+        private final Connection conn;
+
+        Steps(Connection conn) {
+            this.conn = conn;
+        }
+
+        /** {@code ddl} holds one {@code %s} for the auto-increment keyword, if any. */
+        void createTable(String table, String ddl) throws SQLException {
+            String sql = ddl.contains("%s") ? ddl.formatted(mysql ? "AUTO_INCREMENT" : "AUTOINCREMENT") : ddl;
+            timed("table " + table, sql, null);
+        }
+
+        void addColumn(String table, String column, String type) throws SQLException {
+            if (hasColumn(table, column)) {
+                return;
+            }
+            String sql = "ALTER TABLE " + table + " ADD COLUMN " + column + " " + type;
+            timed("column " + table + "." + column, sql, mysql ? sql + ", ALGORITHM=INPLACE, LOCK=NONE" : null);
+        }
+
+        void createIndex(String name, String table, String columns) throws SQLException {
+            if (hasIndex(table, name)) {
+                return;
+            }
+            if (mysql) {
+                String sql = "ALTER TABLE " + table + " ADD INDEX " + name + " (" + columns + ")";
+                timed("index " + name, sql, sql + ", ALGORITHM=INPLACE, LOCK=NONE");
+            } else {
+                // Runs before the writer takes any work, so nothing waits on the build.
+                timed("index " + name, "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + columns + ")",
+                        null);
+            }
+        }
+
+        /**
+         * Unique index over {@code column} for the rows matching {@code where} only.
+         * MySQL has no partial indexes, so there it indexes {@code mysqlColumn}, a
+         * virtual column holding {@code column} for matching rows and NULL otherwise
+         * (NULLs never collide in a unique index).
+         */
+        void createPartialUniqueIndex(String name, String table, String column, String where, String mysqlColumn)
+                throws SQLException {
+            if (hasIndex(table, name)) {
+                return;
+            }
+            if (mysql) {
+                addColumn(table, mysqlColumn, "INT AS (CASE WHEN " + where + " THEN " + column + " END) VIRTUAL");
+                String sql = "ALTER TABLE " + table + " ADD UNIQUE INDEX " + name + " (" + mysqlColumn + ")";
+                timed("index " + name, sql, sql + ", ALGORITHM=INPLACE, LOCK=NONE");
+            } else {
+                timed("index " + name, "CREATE UNIQUE INDEX IF NOT EXISTS " + name + " ON " + table + " ("
+                        + column + ") WHERE " + where, null);
+            }
+        }
+
+        /** A one-off data fix; must be safe to run again. */
+        void execute(String step, String sql) throws SQLException {
+            timed(step, sql, null);
+        }
+
+        /**
+         * Runs {@code online} when given, falling back to {@code sql} if the server
+         * cannot do that operation in place.
+         */
+        private void timed(String step, String sql, String online) throws SQLException {
+            long start = System.nanoTime();
+            try (Statement st = conn.createStatement()) {
+                if (online == null) {
+                    st.execute(sql);
+                } else {
+                    try {
+                        st.execute(online);
+                    } catch (SQLException e) {
+                        logger.warning("[Database] " + step + " cannot be built online (" + e.getMessage()
+                                + "); building with table lock");
+                        st.execute(sql);
+                    }
+                }
+            }
+            logger.info("[Database]   " + step + " (" + (System.nanoTime() - start) / 1_000_000L + "ms)");
+        }
+
+        private boolean hasColumn(String table, String column) throws SQLException {
+            DatabaseMetaData meta = conn.getMetaData();
+            try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, table, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean hasIndex(String table, String index) throws SQLException {
+            DatabaseMetaData meta = conn.getMetaData();
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null && name.toLowerCase(Locale.ROOT).equals(index.toLowerCase(Locale.ROOT))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.inpuzah.stafftools.managers;
+
+import com.inpuzah.stafftools.StaffToolsPlugin;
+import net.kyori.adventure.audience.Audience;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online staff who receive each kind of notification.
+ *
+ * Membership is worked out from permissions on join, when LuckPerms recalculates
+ * a player's permissions, and on reload, and dropped on quit, so sending a
+ * notification touches only its recipients instead of permission-checking every
+ * online player. Each channel is a single {@link Audience} over its live recipient
+ * set: render once, send once. Sending is safe from any thread.
+ */
+public final class StaffAudience {
+
+    public enum Channel {
+        STAFF("stafftools.staff.notify"),
+        REPORTS("stafftools.report.notify"),
+        APPEALS("stafftools.appeal.notify");
+
+        private final String permission;
+
+        Channel(String permission) {
+            this.permission = permission;
+        }
+    }
+
+    private static final Channel[] CHANNELS = Channel.values();
+
+    private final StaffToolsPlugin plugin;
+    private final Map<Channel, Map<UUID, Player>> recipients = new EnumMap<>(Channel.class);
+    private final Map<Channel, Audience> audiences = new EnumMap<>(Channel.class);
+
+    public StaffAudience(StaffToolsPlugin plugin) {
+        this.plugin = plugin;
+        for (Channel channel : CHANNELS) {
+            Map<UUID, Player> members = new ConcurrentHashMap<>();
+            recipients.put(channel, members);
+            // Forwards to whoever is in the set at send time
+            audiences.put(channel, Audience.audience(members.values()));
+        }
+        // Fires off the main thread, and also for offline users being loaded
+        plugin.getLuckPerms().getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, event -> {
+            UUID uuid = event.getUser().getUniqueId();
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null && player.isOnline())
+                    refresh(player);
+            });
+        });
+        reload();
+    }
+
+    /** Rebuilds every channel from the players online now. */
+    public void reload() {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            for (Channel channel : CHANNELS) {
+                recipients.get(channel).clear();
+            }
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                refresh(online);
+            }
+        });
+    }
+
+    public Audience audience(Channel channel) {
+        return audiences.get(channel);
+    }
+
+    public int size(Channel channel) {
+        return recipients.get(channel).size();
+    }
+
+    public void handleJoin(Player player) {
+        refresh(player);
+    }
+
+    public void handleQuit(Player player) {
+        for (Channel channel : CHANNELS) {
+            recipients.get(channel).remove(player.getUniqueId());
+        }
+    }
+
+    private void refresh(Player player) {
+        for (Channel channel : CHANNELS) {
+            if (player.hasPermission(channel.permission)) {
+                recipients.get(channel).put(player.getUniqueId(), player);
+            } else {
+                recipients.get(channel).remove(player.getUniqueId());
+            }
+        }
+    }
+}
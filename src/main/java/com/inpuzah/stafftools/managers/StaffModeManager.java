@@ -30,6 +30,7 @@ public class StaffModeManager {
         }
 
         staffMode.add(player.getUniqueId());
+        plugin.getPresenceIndicators().mark(PresenceIndicators.Kind.STAFF_MODE, player.getUniqueId());
 
         // Save inventory and armor
         savedInventories.put(player.getUniqueId(), player.getInventory().getContents());
@@ -74,6 +75,7 @@ public class StaffModeManager {
         }
 
         staffMode.remove(player.getUniqueId());
+        plugin.getPresenceIndicators().unmark(PresenceIndicators.Kind.STAFF_MODE, player.getUniqueId());
 
         // Restore inventory
         ItemStack[] inv = savedInventories.remove(player.getUniqueId());
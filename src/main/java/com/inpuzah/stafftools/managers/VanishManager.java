@@ -2,35 +2,57 @@ package com.inpuzah.stafftools.managers;
 
 import com.inpuzah.stafftools.StaffToolsPlugin;
 import com.inpuzah.stafftools.utils.MessageUtil;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vanish state, and who can see whom.
+ *
+ * Every online player's see-rank is worked out from their permissions once (on
+ * join, when LuckPerms recalculates their permissions, and on reload) and cached,
+ * so whether a viewer sees a vanished target is a single comparison. Vanish
+ * toggles, joins and quits then only revisit the pairs they change: the toggled
+ * player against everyone, or the joining player against the vanished players.
+ * Everything here runs on the main thread.
+ */
 public class VanishManager {
 
+    // See-ranks: which vanished players a viewer can see
+    private static final int SEE_NONE = -1; // no stafftools.vanish.see
+    private static final int SEE_OWN_LEVEL = 0; // vanished players up to the viewer's own vanish level
+    private static final int SEE_ALL = Integer.MAX_VALUE;
+
     @NotNull
     private final StaffToolsPlugin plugin;
-    private final Map<UUID, Integer> vanishedPlayers = new HashMap<>(); // UUID -> level
-
-    private org.bukkit.scheduler.BukkitTask actionBarTask;
+    private final Map<UUID, Integer> vanishedPlayers = new ConcurrentHashMap<>(); // UUID -> level
+    private final Map<UUID, Integer> seeRanks = new HashMap<>(); // online UUID -> see-rank
+    private boolean priorityLevels;
 
     public VanishManager(StaffToolsPlugin plugin) {
         this.plugin = plugin;
+        // Fires off the main thread, and also for offline users being loaded
+        plugin.getLuckPerms().getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, event -> {
+            UUID uuid = event.getUser().getUniqueId();
+            Bukkit.getScheduler().runTask(plugin, () -> refreshSeeRank(uuid));
+        });
         reload();
     }
 
-    /** Reload scheduled tasks that depend on config. */
+    /** Re-reads priority settings and re-applies visibility. */
     public void reload() {
-        if (actionBarTask != null) {
-            actionBarTask.cancel();
-            actionBarTask = null;
-        }
-        startActionBarTask();
+        priorityLevels = plugin.getConfig().getBoolean("vanish.priority-levels.enabled", true);
 
         // Re-apply visibility after reload in case priority settings changed.
         Bukkit.getScheduler().runTask(plugin, () -> {
+            seeRanks.clear();
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                seeRanks.put(online.getUniqueId(), computeSeeRank(online));
+            }
             for (UUID uuid : new HashSet<>(vanishedPlayers.keySet())) {
                 Player p = Bukkit.getPlayer(uuid);
                 if (p != null && p.isOnline())
@@ -39,19 +61,6 @@ public class VanishManager {
         });
     }
 
-    private void startActionBarTask() {
-        if (!plugin.getConfig().getBoolean("vanish.action-bar-enabled", true))
-            return;
-        actionBarTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            String msg = plugin.getConfig().getString("vanish.action-bar-message", "&7You are &bvanished&7!");
-            for (UUID uuid : vanishedPlayers.keySet()) {
-                Player p = Bukkit.getPlayer(uuid);
-                if (p != null && p.isOnline())
-                    MessageUtil.sendActionBar(p, msg);
-            }
-        }, 20L, 20L);
-    }
-
     public void setVanished(Player player, boolean vanished) {
         setVanished(player, vanished, 1);
     }
@@ -59,10 +68,12 @@ public class VanishManager {
     public void setVanished(Player player, boolean vanished, int level) {
         if (vanished) {
             vanishedPlayers.put(player.getUniqueId(), level);
+            plugin.getPresenceIndicators().mark(PresenceIndicators.Kind.VANISH, player.getUniqueId());
             applyVanish(player);
             MessageUtil.sendMessage(player, MessageUtil.getMessage("vanish.enabled"));
         } else {
             vanishedPlayers.remove(player.getUniqueId());
+            plugin.getPresenceIndicators().unmark(PresenceIndicators.Kind.VANISH, player.getUniqueId());
             removeVanish(player);
             MessageUtil.sendMessage(player, MessageUtil.getMessage("vanish.disabled"));
         }
@@ -76,11 +87,10 @@ public class VanishManager {
     @SuppressWarnings("nullness") // Bukkit.getOnlinePlayers() guarantees non-null players; plugin is @NotNull
                                   // field
     private void applyVanish(Player player) {
-        for (Player online : Bukkit.getOnlinePlayers()) {
-            if (!canSee(online, player)) {
-                online.hidePlayer(plugin, player);
-            }
-        }
+        hideFromViewers(player);
+        // A leveled viewer's own vanish level is their see-level, so that changed too
+        if (seeRank(player) == SEE_OWN_LEVEL)
+            refreshViewer(player);
         if (plugin.getConfig().getBoolean("vanish.fake-messages", true)) {
             String leave = plugin.getConfig().getString("vanish.fake-leave-message",
                     "&e" + player.getName() + " left the game");
@@ -93,6 +103,8 @@ public class VanishManager {
         for (Player online : Bukkit.getOnlinePlayers()) {
             online.showPlayer(plugin, player);
         }
+        if (seeRank(player) == SEE_OWN_LEVEL)
+            refreshViewer(player);
         if (plugin.getConfig().getBoolean("vanish.fake-messages", true)) {
             String join = plugin.getConfig().getString("vanish.fake-join-message",
                     "&e" + player.getName() + " joined the game");
@@ -113,37 +125,25 @@ public class VanishManager {
     }
 
     public boolean canSee(Player viewer, Player target) {
-        if (!isVanished(target))
+        Integer level = vanishedPlayers.get(target.getUniqueId());
+        if (level == null)
             return true;
-        if (!viewer.hasPermission("stafftools.vanish.see"))
-            return false;
-
-        if (plugin.getConfig().getBoolean("vanish.priority-levels.enabled", true)) {
-            int t = getVanishLevel(target.getUniqueId());
-            int v = isVanished(viewer) ? getVanishLevel(viewer.getUniqueId()) : 0;
-            return v >= t || viewer.hasPermission("stafftools.vanish.priority");
-        }
-        return true;
+        int rank = seeRank(viewer);
+        int seeLevel = rank == SEE_OWN_LEVEL ? getVanishLevel(viewer.getUniqueId()) : rank;
+        return seeLevel >= level;
     }
 
-    @SuppressWarnings("nullness") // Bukkit.getOnlinePlayers() guarantees non-null players
+    /** Full re-check of one player, both as viewer and as target. */
     public void updateVisibility(Player player) {
-        for (Player other : Bukkit.getOnlinePlayers()) {
-            if (other.equals(player))
-                continue;
-
-            if (canSee(other, player)) {
-                other.showPlayer(plugin, player);
-            } else {
-                other.hidePlayer(plugin, player);
-            }
+        if (isVanished(player))
+            hideFromViewers(player);
+        refreshViewer(player);
+    }
 
-            if (canSee(player, other)) {
-                player.showPlayer(plugin, other);
-            } else {
-                player.hidePlayer(plugin, other);
-            }
-        }
+    /** Join hook: caches the player's see-rank and shows them only the vanished players they may see. */
+    public void handleJoin(Player player) {
+        seeRanks.put(player.getUniqueId(), computeSeeRank(player));
+        updateVisibility(player);
     }
 
     /**
@@ -153,16 +153,70 @@ public class VanishManager {
      */
     @SuppressWarnings("nullness") // Bukkit.getOnlinePlayers() guarantees non-null players
     public void handleQuit(Player player) {
+        seeRanks.remove(player.getUniqueId());
         if (!isVanished(player))
             return;
 
-        vanishedPlayers.remove(player.getUniqueId());
         for (Player online : Bukkit.getOnlinePlayers()) {
-            online.showPlayer(plugin, player);
+            if (!online.equals(player) && !canSee(online, player))
+                online.showPlayer(plugin, player);
         }
+        vanishedPlayers.remove(player.getUniqueId());
+        plugin.getPresenceIndicators().unmark(PresenceIndicators.Kind.VANISH, player.getUniqueId());
     }
 
     public Set<UUID> getVanishedPlayers() {
         return new HashSet<>(vanishedPlayers.keySet());
     }
+
+    @SuppressWarnings("nullness") // Bukkit.getOnlinePlayers() guarantees non-null players
+    private void hideFromViewers(Player target) {
+        for (Player online : Bukkit.getOnlinePlayers()) {
+            if (!online.equals(target) && !canSee(online, target))
+                online.hidePlayer(plugin, target);
+        }
+    }
+
+    /** Shows or hides each vanished player for this viewer. */
+    private void refreshViewer(Player viewer) {
+        for (UUID uuid : vanishedPlayers.keySet()) {
+            Player target = Bukkit.getPlayer(uuid);
+            if (target == null || target.equals(viewer))
+                continue;
+            if (canSee(viewer, target)) {
+                viewer.showPlayer(plugin, target);
+            } else {
+                viewer.hidePlayer(plugin, target);
+            }
+        }
+    }
+
+    /** After a LuckPerms recalculation: re-checks the player only if their see-rank changed. */
+    private void refreshSeeRank(UUID uuid) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null || !player.isOnline())
+            return;
+        int rank = computeSeeRank(player);
+        Integer previous = seeRanks.put(uuid, rank);
+        if (previous == null || previous != rank)
+            refreshViewer(player);
+    }
+
+    private int seeRank(Player viewer) {
+        Integer rank = seeRanks.get(viewer.getUniqueId());
+        if (rank == null) {
+            rank = computeSeeRank(viewer);
+            if (viewer.isOnline())
+                seeRanks.put(viewer.getUniqueId(), rank);
+        }
+        return rank;
+    }
+
+    private int computeSeeRank(Player viewer) {
+        if (!viewer.hasPermission("stafftools.vanish.see"))
+            return SEE_NONE;
+        if (!priorityLevels || viewer.hasPermission("stafftools.vanish.priority"))
+            return SEE_ALL;
+        return SEE_OWN_LEVEL;
+    }
 }
@@ -0,0 +1,159 @@
+package com.inpuzah.stafftools.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.serializer.legacy.LegacyFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A legacy '&' message compiled once into styled segments: literal text, built as
+ * Components up front, and {@code {name}} placeholder slots that remember the style
+ * in effect where they appear. Rendering only fills the slots and joins the
+ * segments; nothing is parsed again, and a template without slots renders to the
+ * same Component every time.
+ *
+ * Values are inserted as plain text, so color codes in player-supplied values
+ * (reasons, names) are not interpreted; {@link Slot#legacy} slots are for values
+ * that come from the config.
+ */
+public final class MessageTemplate {
+
+    /** A named placeholder and how values of type {@code T} are written into it. */
+    public static final class Slot<T> {
+        private final String name;
+        private final Function<? super T, String> format;
+        private final boolean legacy;
+
+        private Slot(String name, Function<? super T, String> format, boolean legacy) {
+            this.name = name;
+            this.format = format;
+            this.legacy = legacy;
+        }
+
+        public static Slot<String> text(String name) {
+            return new Slot<>(name, s -> s, false);
+        }
+
+        /** A slot whose values may contain '&' color codes (config values only). */
+        public static Slot<String> legacy(String name) {
+            return new Slot<>(name, s -> s, true);
+        }
+
+        public static <T> Slot<T> of(String name, Function<? super T, String> format) {
+            return new Slot<>(name, format, false);
+        }
+
+        public Value of(T value) {
+            return new Value(name, value == null ? "" : format.apply(value), legacy);
+        }
+    }
+
+    /** A filled slot, passed to {@link #render}. */
+    public record Value(String name, String text, boolean legacy) {
+    }
+
+    /** Either a literal (pre-built) or a slot name with the style to render its value in. */
+    private record Segment(Component literal, String slot, Style style) {
+    }
+
+    private final List<Segment> segments;
+    private final Component fixed; // non-null when there are no slots
+
+    private MessageTemplate(List<Segment> segments) {
+        this.segments = segments;
+        boolean hasSlots = segments.stream().anyMatch(s -> s.literal() == null);
+        this.fixed = hasSlots ? null : join(segments, new Value[0]);
+    }
+
+    public static MessageTemplate compile(String legacy) {
+        List<Segment> segments = new ArrayList<>();
+        if (legacy == null)
+            return new MessageTemplate(segments);
+        Style style = Style.empty();
+        StringBuilder text = new StringBuilder();
+        int n = legacy.length();
+        for (int i = 0; i < n; i++) {
+            char c = legacy.charAt(i);
+            if (c == '&' && i + 1 < n) {
+                LegacyFormat format = LegacyComponentSerializer.parseChar(legacy.charAt(i + 1));
+                if (format != null) {
+                    flush(segments, text, style);
+                    style = apply(style, format);
+                    i++;
+                    continue;
+                }
+            }
+            if (c == '{') {
+                int close = legacy.indexOf('}', i + 1);
+                if (close > i + 1 && isName(legacy, i + 1, close)) {
+                    flush(segments, text, style);
+                    segments.add(new Segment(null, legacy.substring(i + 1, close), style));
+                    i = close;
+                    continue;
+                }
+            }
+            text.append(c);
+        }
+        flush(segments, text, style);
+        return new MessageTemplate(List.copyOf(segments));
+    }
+
+    public Component render(Value... values) {
+        return fixed != null ? fixed : join(segments, values);
+    }
+
+    private static Component join(List<Segment> segments, Value[] values) {
+        if (segments.size() == 1 && segments.get(0).literal() != null)
+            return segments.get(0).literal();
+        TextComponent.Builder out = Component.text();
+        for (Segment segment : segments) {
+            out.append(segment.literal() != null ? segment.literal() : fill(segment, values));
+        }
+        return out.build();
+    }
+
+    private static Component fill(Segment slot, Value[] values) {
+        for (Value value : values) {
+            if (!value.name().equals(slot.slot()))
+                continue;
+            if (!value.legacy())
+                return Component.text(value.text(), slot.style());
+            // Codes in the value override the slot's style, as they would inline
+            return Component.text().style(slot.style()).append(MessageUtil.component(value.text())).build();
+        }
+        // Not supplied: leave the placeholder visible, as an unreplaced string would
+        return Component.text("{" + slot.slot() + "}", slot.style());
+    }
+
+    private static void flush(List<Segment> segments, StringBuilder text, Style style) {
+        if (text.length() == 0)
+            return;
+        segments.add(new Segment(Component.text(text.toString(), style), null, style));
+        text.setLength(0);
+    }
+
+    /** Legacy semantics: a color clears decorations, a decoration adds to the style, reset clears all. */
+    private static Style apply(Style style, LegacyFormat format) {
+        if (format.reset())
+            return Style.empty();
+        if (format.color() != null)
+            return Style.style(format.color());
+        if (format.decoration() != null)
+            return style.decorate(format.decoration());
+        return style;
+    }
+
+    private static boolean isName(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_'))
+                return false;
+        }
+        return true;
+    }
+}
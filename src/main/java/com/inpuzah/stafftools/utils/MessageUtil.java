@@ -4,18 +4,30 @@ import com.inpuzah.stafftools.StaffToolsPlugin;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Message helper.
  *
  * This plugin's config uses legacy '&' color codes. Paper's Adventure APIs expect Components;
  * if you pass '§' color codes inside Component.text(...), clients will see the raw characters.
+ *
+ * Configured messages are compiled into {@link MessageTemplate}s once per reload; one
+ * without placeholders keeps its rendered Component, so a fixed message is parsed once.
+ * The prefix is read once per reload. Ad-hoc strings are parsed on every send.
  */
 public final class MessageUtil {
 
     private static final LegacyComponentSerializer LEGACY_AMP = LegacyComponentSerializer.legacyAmpersand();
 
+    private static final Map<String, MessageTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private static volatile String prefix;
+
     private MessageUtil() {}
 
     /** Converts legacy '&' colors to section sign for legacy String APIs. */
@@ -30,6 +42,35 @@ public final class MessageUtil {
         return LEGACY_AMP.deserialize(legacyMessage);
     }
 
+    /** Drops compiled templates; call after the config is reloaded. */
+    public static void reload() {
+        prefix = null;
+        TEMPLATES.clear();
+    }
+
+    /** The message at config {@code path} (e.g. {@code "messages.punishment.muted"}), compiled. */
+    public static MessageTemplate template(String path, String def) {
+        return TEMPLATES.computeIfAbsent("t:" + path, k -> MessageTemplate.compile(config().getString(path, def)));
+    }
+
+    /** As {@link #template}, with the message prefix in front. */
+    public static MessageTemplate prefixedTemplate(String path, String def) {
+        return TEMPLATES.computeIfAbsent("p:" + path,
+                k -> MessageTemplate.compile(getPrefix() + config().getString(path, def)));
+    }
+
+    /** The string list at config {@code path} as one template, one line per entry. */
+    public static MessageTemplate linesTemplate(String path) {
+        return TEMPLATES.computeIfAbsent("l:" + path, k -> {
+            List<String> lines = config().getStringList(path);
+            return MessageTemplate.compile(String.join("\n", lines));
+        });
+    }
+
+    private static FileConfiguration config() {
+        return StaffToolsPlugin.getInstance().getConfig();
+    }
+
     public static void sendMessage(CommandSender sender, String message) {
         if (sender == null || message == null || message.isEmpty()) return;
 
@@ -57,7 +98,12 @@ public final class MessageUtil {
     }
 
     public static String getPrefix() {
-        return StaffToolsPlugin.getInstance().getConfig().getString("messages.prefix", "&7[&c&lStaff&7] ");
+        String p = prefix;
+        if (p == null) {
+            p = config().getString("messages.prefix", "&7[&c&lStaff&7] ");
+            prefix = p;
+        }
+        return p;
     }
 
     public static String getMessage(String path) {
@@ -0,0 +1,20 @@
+package com.inpuzah.stafftools.utils;
+
+import com.inpuzah.stafftools.utils.MessageTemplate.Slot;
+
+/** Placeholder slots used by the configured messages. */
+public final class Placeholders {
+
+    public static final Slot<String> PLAYER = Slot.text("player");
+    public static final Slot<String> STAFF = Slot.text("staff");
+    public static final Slot<String> REASON = Slot.text("reason");
+    public static final Slot<String> DURATION = Slot.text("duration");
+    public static final Slot<String> DURATION_REMAINING = Slot.text("duration-remaining");
+    public static final Slot<String> EXPIRES = Slot.text("expires");
+    public static final Slot<Long> DATE = Slot.of("date", TimeUtil::formatDate);
+    public static final Slot<Integer> ID = Slot.of("id", String::valueOf);
+    public static final Slot<Integer> COUNT = Slot.of("count", String::valueOf);
+    public static final Slot<String> DISCORD_URL = Slot.legacy("discord-url");
+
+    private Placeholders() {}
+}
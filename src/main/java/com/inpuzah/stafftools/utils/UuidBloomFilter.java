@@ -0,0 +1,69 @@
+package com.inpuzah.stafftools.utils;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Small thread-safe Bloom filter over UUIDs.
+ *
+ * {@link #mightContain(UUID)} never returns false for a UUID that was added, so a
+ * negative answer is a definite "not present" without touching any map. Entries
+ * cannot be removed; callers rebuild a fresh filter when too many go stale.
+ */
+public final class UuidBloomFilter {
+
+    private static final int HASHES = 3;
+    private static final int BITS_PER_ENTRY = 16; // ~0.5% false positives at capacity
+    private static final int MIN_BITS = 1024;
+    private static final int MAX_ENTRIES = 1 << 24;
+    private static final LongBinaryOperator OR = (a, b) -> a | b;
+
+    private final AtomicLongArray words;
+    private final int mask;
+    private final int capacity;
+
+    public UuidBloomFilter(int expectedEntries) {
+        int entries = Math.max(1, Math.min(expectedEntries, MAX_ENTRIES));
+        int wanted = Math.max(MIN_BITS, entries * BITS_PER_ENTRY);
+        int bits = Integer.highestOneBit(wanted - 1) << 1; // next power of two
+        this.words = new AtomicLongArray(bits >>> 6);
+        this.mask = bits - 1;
+        this.capacity = bits / BITS_PER_ENTRY;
+    }
+
+    public void add(UUID uuid) {
+        long h1 = mix(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+        long h2 = mix(uuid.getLeastSignificantBits()) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            words.accumulateAndGet(bit >>> 6, 1L << (bit & 63), OR);
+        }
+    }
+
+    public boolean mightContain(UUID uuid) {
+        long h1 = mix(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+        long h2 = mix(uuid.getLeastSignificantBits()) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            if ((words.get(bit >>> 6) & (1L << (bit & 63))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /** Number of entries this filter was sized for before false positives climb. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // MurmurHash3 fmix64
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}